@@ -8,6 +8,7 @@ import javafx.scene.layout.*;
 import javafx.scene.paint.Color;
 import javafx.stage.Stage;
 import physicsUI.PhysicsUI;
+import timeline.RewindTimeline;
 
 public class Main extends Application {
     @Override
@@ -19,8 +20,9 @@ public class Main extends Application {
         Color subtleBlack = Color.rgb( 242, 233, 220, 1);
 
         PhysicsWorld physicsWorld = new PhysicsWorld();
+        physicsWorld.setTimeline(new RewindTimeline(physicsWorld, Constants.REWIND_MEMORY_BYTES, Constants.REWIND_KEYFRAME_INTERVAL));
         EngineLoop engineLoop = new EngineLoop();
-        engineLoop.addUpdatable(physicsWorld);
+        physicsWorld.addStages(engineLoop.getScheduler());
         PhysicsUI physicsUI = new PhysicsUI( sceneHeight, sceneWidth, physicsWorld, engineLoop, simulationPane);
 
         BorderPane root = new BorderPane();
@@ -1,247 +1,588 @@
 package PhysicsWorld;
 
+import collision.CollisionFilter;
+import collision.ContactSolver;
+import collision.MortonOrder;
+import collision.SensorIndex;
+import collision.SweepAndPrune;
+import collision.TerrainIndex;
+import commands.CommandQueue;
 import enums.BodyType;
 import enums.Constants;
+import enums.ContactPhase;
+import enums.Resource;
+import events.ContactEventBuffer;
+import events.ContactPairSet;
+import forces.ForceFieldSet;
+import forces.UniformField;
+import integrators.SymplecticEuler;
+import interfaces.ContactListener;
+import interfaces.ForceField;
+import interfaces.Integrator;
 import interfaces.PhysicsObject;
+import interfaces.SensorListener;
 import interfaces.Updatable;
+import interfaces.WorldCommand;
+import interfaces.WorldListener;
 import javafx.scene.paint.Color;
 import javafx.scene.shape.Circle;
 import javafx.scene.shape.Rectangle;
 import javafx.scene.shape.Shape;
+import materials.Materials;
 import org.w3c.dom.css.Rect;
+import render.RenderSync;
+import scheduler.Stage;
+import scheduler.StageScheduler;
 import shapes.Ball;
+import shapes.RigidBody;
+import shapes.Sensor;
 import shapes.Square;
+import shapes.Terrain;
+import timeline.RewindTimeline;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.concurrent.RecursiveAction;
 
 public class PhysicsWorld implements Updatable {
-    List<PhysicsObject> objects = new ArrayList<>();
+    ArrayList<PhysicsObject> objects = new ArrayList<>();
+    private final List<PhysicsObject> objectsView = Collections.unmodifiableList(objects);
+    private long structureVersion = 0; // Bumped on every spawn and despawn
+    // Static segment geometry, kept out of objects so it never enters the pairwise loop
+    private final TerrainIndex terrains = new TerrainIndex();
+    private int nextBodyId = 0;
+    private PhysicsObject[] bodiesById = new PhysicsObject[64]; // Id -> body, null once despawned
+    private final List<WorldListener> worldListeners = new ArrayList<>();
+    // Mutations submitted from other threads, executed at the start of each step
+    private final CommandQueue commands = new CommandQueue();
+    private RewindTimeline timeline; // Optional, records a frame at the start of every step
+    // Bodies are periodically re-sorted by Z-order of position so spatial neighbours sit next to each other in objects
+    private final MortonOrder mortonOrder = new MortonOrder();
+    private int stepsSinceReorder = 0;
+    private int[] segmentHits = new int[64]; // Scratch buffer for terrain queries
+    // Scratch for ContactSolver, the solver runs on one thread at a time
+    private final double[] stateA = new double[4];
+    private final double[] stateB = new double[4];
+    private final double[] contactNormal = new double[2];
+    // Candidate pairs for the solver, found once per step
+    private final SweepAndPrune broadphase = new SweepAndPrune();
+    // Trigger zones, kept out of objects so they never reach the solver
+    private final SensorIndex sensors = new SensorIndex();
+    // Bodies that moved far enough since they were last drawn, pushed to their nodes once per frame
+    private final RenderSync renderSync = new RenderSync();
+
+// =================== INTEGRATION ===================
+
+    private Integrator integrator = new SymplecticEuler();
+    // Every field acting on the bodies, prepared once per step before integration. Starts with plain gravity
+    private final ForceFieldSet forceField = new ForceFieldSet();
+    // Integration is split into these ranges of objects once there are enough bodies to be worth spreading over threads
+    private static final int INTEGRATE_CHUNKS = 8;
+    private final IntegrateTask[] integrateTasks = new IntegrateTask[INTEGRATE_CHUNKS];
+
+// =================== CONTACT EVENTS ===================
+
+    private final ContactEventBuffer contactEvents;
+    private final List<ContactListener> contactListeners = new ArrayList<>();
+    // Pairs touching in the previous and in the current step, swapped after every step
+    private ContactPairSet previousContacts = new ContactPairSet(256);
+    private ContactPairSet currentContacts = new ContactPairSet(256);
 
     public PhysicsWorld() {
+        this(Constants.CONTACT_EVENT_CAPACITY);
     }
 
-    public Ball spawnBall(double centerX, double centerY, double radius, Color color, double floorY, double floorX, double mass, BodyType bodyType) {
-        Ball ball = new Ball(centerX, centerY, radius, color, floorY, floorX, mass, bodyType);
-        objects.add(ball);
-        return ball;
+    // contactEventCapacity bounds the contact events buffered in one step, see ContactEventBuffer for what happens past it
+    public PhysicsWorld(int contactEventCapacity) {
+        contactEvents = new ContactEventBuffer(contactEventCapacity);
+        forceField.add(UniformField.GRAVITY);
+        for (int i = 0; i < INTEGRATE_CHUNKS; i++) integrateTasks[i] = new IntegrateTask();
     }
 
-    public Square spawnSquare(double centerX, double centerY, double height, double width, Color color, double floorX, double floorY, double mass, BodyType bodyType) {
-        Square square = new Square(centerX, centerY, height, width, color, floorX, floorY, mass, bodyType);
-        objects.add(square);
-        return square;
+    public void addForceField(ForceField field) {
+        forceField.add(field);
     }
 
-    public void collision() {
-        for (int i = 0; i < objects.size(); i++) {
-            for (int j = i + 1; j < objects.size(); j++) {
-                PhysicsObject a = objects.get(i);
-                PhysicsObject b = objects.get(j);
-
-                if (a instanceof Ball ballA && b instanceof Ball ballB) {
-                    if (areBallsColliding(ballA, ballB)) {
-                        resolveBallCollision(ballA, ballB);
-                    }
-                }
-                if ((a instanceof Ball && b instanceof Square) || (a instanceof Square && b instanceof Ball)) {
-                    // Normalize order: ball always first
-                    Ball ball = a instanceof Ball ? (Ball) a : (Ball) b;
-                    Square square = a instanceof Square ? (Square) a : (Square) b;
+    public void removeForceField(ForceField field) {
+        forceField.remove(field);
+    }
+
+    public List<ForceField> getForceFields() {
+        return forceField.getFields();
+    }
+
+    // Safe to call from any thread. The command runs on the simulation thread at the start of the next step
+    public void submit(WorldCommand command) {
+        commands.submit(command);
+    }
 
-                    if (areBallAndSquareColliding(ball, square)) {
-                        double rectCenterX = square.getCenterX();
-                        double rectCenterY = square.getCenterY();
-                        double halfWidth = square.getWidth() / 2.0;
-                        double halfHeight = square.getHeight() / 2.0;
+    public void addWorldListener(WorldListener listener) {
+        worldListeners.add(listener);
+    }
 
-                        double ballX = ball.getCenterX();
-                        double ballY = ball.getCenterY();
+    public void removeWorldListener(WorldListener listener) {
+        worldListeners.remove(listener);
+    }
 
-                        // Step 1: Closest point on rectangle to ball
-                        double closestX = Math.max(rectCenterX - halfWidth, Math.min(ballX, rectCenterX + halfWidth));
-                        double closestY = Math.max(rectCenterY - halfHeight, Math.min(ballY, rectCenterY + halfHeight));
+    public List<PhysicsObject> getObjects() {
+        return objectsView;
+    }
 
-                        // Step 2: Vector from rect to ball
-                        double dx = ballX - closestX;
-                        double dy = ballY - closestY;
+    public List<Terrain> getTerrains() {
+        return terrains.getTerrains();
+    }
 
-                        double distance = Math.sqrt(dx * dx + dy * dy);
-                        double radius = ball.getRadius();
+    public List<Sensor> getSensors() {
+        return sensors.getSensors();
+    }
 
-                        if (distance == 0) {
-                            dx = 0;
-                            dy = -1;
-                            distance = 1;
-                        }
+    public void addSensorListener(SensorListener listener) {
+        sensors.addListener(listener);
+    }
 
-                        double overlap = radius - distance;
+    public void removeSensorListener(SensorListener listener) {
+        sensors.removeListener(listener);
+    }
 
-                        // Step 3: Collision normal (unit vector)
-                        double nx = dx / distance;
-                        double ny = dy / distance;
+    public RenderSync getRenderSync() {
+        return renderSync;
+    }
 
-                        // Step 4: Push ball out of collision
-                        ball.setCenterX(ballX + nx * overlap);
-                        ball.setCenterY(ballY + ny * overlap);
+    public long getStructureVersion() {
+        return structureVersion;
+    }
 
-                        // Step 5: Compute relative velocity along normal
-                        double velAlongNormal = ball.velocityX * nx + ball.velocityY * ny;
+    public void setTimeline(RewindTimeline timeline) {
+        this.timeline = timeline;
+    }
 
-                        // Only apply impulse if moving into the surface
-                        if (velAlongNormal < 0) {
-                            double mass = ball.getMass();
-                            double restitution = Constants.RESTITUTION;
-                            double impulse = -(1 + restitution) * velAlongNormal * mass;
+    public RewindTimeline getTimeline() {
+        return timeline;
+    }
 
-                            ball.velocityX += (impulse / mass) * nx;
-                            ball.velocityY += (impulse / mass) * ny;
-                        }
-                    }
+    // Returns the body with the given id, or null if there is none
+    public PhysicsObject getBody(int id) {
+        return id >= 0 && id < bodiesById.length ? bodiesById[id] : null;
+    }
 
+    public void addContactListener(ContactListener listener) {
+        contactListeners.add(listener);
+    }
 
-                }
+    public void removeContactListener(ContactListener listener) {
+        contactListeners.remove(listener);
+    }
+
+    public ContactEventBuffer getContactEvents() {
+        return contactEvents;
+    }
+
+    // Switches every body, current and future, to the given integrator
+    public void setIntegrator(Integrator integrator) {
+        this.integrator = integrator;
+        for (int i = 0; i < objects.size(); i++) {
+            if (objects.get(i) instanceof RigidBody body) {
+                body.setIntegrator(integrator, forceField);
             }
         }
     }
 
+    public Integrator getIntegrator() {
+        return integrator;
+    }
 
-    private boolean areBallsColliding(Ball a, Ball b) {
-        double dx = a.getShape().getCenterX() - b.getShape().getCenterX();
-        double dy = a.getShape().getCenterY() - b.getShape().getCenterY();
-        double distance = Math.sqrt(dx * dx + dy * dy);
-        return distance < (a.getShape().getRadius() + b.getShape().getRadius());
+    public Ball spawnBall(double centerX, double centerY, double radius, Color color, double floorY, double floorX, double mass, BodyType bodyType) {
+        return spawnBall(centerX, centerY, radius, color, floorY, floorX, mass, bodyType, Materials.DEFAULT);
     }
 
-    private boolean areBallAndSquareColliding(Ball circle, Square rect) {
-        double circleX = circle.getCenterX();
-        double circleY = circle.getCenterY();
+    public Ball spawnBall(double centerX, double centerY, double radius, Color color, double floorY, double floorX, double mass, BodyType bodyType, int material) {
+        Ball ball = new Ball(nextBodyId++, centerX, centerY, radius, color, floorY, floorX, mass, bodyType, material);
+        ball.setIntegrator(integrator, forceField);
+        ball.setRenderSync(renderSync);
+        objects.add(ball);
+        register(ball);
+        return ball;
+    }
 
-        // Adjusted rectangle bounds assuming rectX/Y is center-based
-        double rectCenterX = rect.getCenterX();
-        double rectCenterY = rect.getCenterY();
-        double halfWidth = rect.getWidth() / 2.0;
-        double halfHeight = rect.getHeight() / 2.0;
+    public Square spawnSquare(double centerX, double centerY, double height, double width, Color color, double floorX, double floorY, double mass, BodyType bodyType) {
+        return spawnSquare(centerX, centerY, height, width, color, floorX, floorY, mass, bodyType, Materials.BOX);
+    }
 
-        double rectLeft = rectCenterX - halfWidth;
-        double rectRight = rectCenterX + halfWidth;
-        double rectTop = rectCenterY - halfHeight;
-        double rectBottom = rectCenterY + halfHeight;
+    public Square spawnSquare(double centerX, double centerY, double height, double width, Color color, double floorX, double floorY, double mass, BodyType bodyType, int material) {
+        Square square = new Square(nextBodyId++, centerX, centerY, height, width, color, floorX, floorY, mass, bodyType, material);
+        square.setIntegrator(integrator, forceField);
+        square.setRenderSync(renderSync);
+        objects.add(square);
+        register(square);
+        return square;
+    }
 
-        // Find the closest point on the rectangle to the circle's center
-        double closestX = clamp(circleX, rectLeft, rectRight);
-        double closestY = clamp(circleY, rectTop, rectBottom);
+    public Terrain spawnTerrain(double[] points, Color color) {
+        return spawnTerrain(points, color, Materials.WALL);
+    }
 
-        // Calculate the horizontal and vertical distances between the circle center
-        // and the closest point on the rectangle
-        double dx = circleX - closestX;
-        double dy = circleY - closestY;
+    public Terrain spawnTerrain(double[] points, Color color, int material) {
+        Terrain terrain = new Terrain(nextBodyId++, points, color, material);
+        terrains.add(terrain);
+        register(terrain);
+        return terrain;
+    }
 
-        double distanceSquared = dx * dx + dy * dy;
+    public Sensor spawnCircleSensor(double centerX, double centerY, double radius, Color color) {
+        Sensor sensor = Sensor.circle(nextBodyId++, centerX, centerY, radius, color);
+        sensors.add(sensor);
+        register(sensor);
+        return sensor;
+    }
 
-        //We are doing radius*radius bc we didn't take sqrt of distance
-        return distanceSquared <= circle.getRadius() * circle.getRadius();
+    public Sensor spawnBoxSensor(double centerX, double centerY, double width, double height, Color color) {
+        Sensor sensor = Sensor.box(nextBodyId++, centerX, centerY, width, height, color);
+        sensors.add(sensor);
+        register(sensor);
+        return sensor;
     }
 
-    private double clamp(double value, double min, double max) {
-        return Math.max(min, Math.min(value, max));
+    public void despawn(int id) {
+        PhysicsObject object = getBody(id);
+        if (object == null) return;
+
+        if (object instanceof Terrain terrain) {
+            terrains.remove(terrain);
+        } else if (object instanceof Sensor sensor) {
+            sensors.remove(sensor);
+        } else {
+            objects.remove(object);
+            ((RigidBody) object).setRenderSync(null);
+        }
+        bodiesById[id] = null;
+        structureVersion++;
+        for (int i = 0; i < worldListeners.size(); i++) {
+            worldListeners.get(i).onDespawn(object);
+        }
     }
 
-    private void resolveBallCollision(Ball ballA, Ball ballB) {
+    // Puts a despawned body back under its old id, e.g. when rewinding to a frame it existed in
+    public void respawn(RigidBody body) {
+        if (getBody(body.getId()) != null) return;
+        body.setIntegrator(integrator, forceField);
+        body.setRenderSync(renderSync);
+        objects.add(body);
+        register(body);
+    }
 
-        double dx = ballA.getShape().getCenterX() - ballB.getShape().getCenterX();
-        double dy = ballA.getShape().getCenterY() - ballB.getShape().getCenterY();
-        double distance = Math.sqrt(dx * dx + dy * dy);
-        if (distance == 0) distance = 0.001;
+    // Despawns every body and terrain at once, listeners get a single onClear instead of one onDespawn per body
+    public void clear() {
+        List<PhysicsObject> removed = new ArrayList<>(objects.size() + terrains.getTerrains().size() + sensors.getSensors().size());
+        removed.addAll(objects);
+        removed.addAll(terrains.getTerrains());
+        removed.addAll(sensors.getSensors());
+        for (int i = 0; i < objects.size(); i++) {
+            ((RigidBody) objects.get(i)).setRenderSync(null);
+        }
+        renderSync.clear();
+        objects.clear();
+        terrains.clear();
+        sensors.clear();
+        Arrays.fill(bodiesById, null);
+        structureVersion++;
+        for (int i = 0; i < worldListeners.size(); i++) {
+            worldListeners.get(i).onClear(removed);
+        }
+    }
 
-        double overlap = ballA.getShape().getRadius() + ballB.getShape().getRadius() - distance;
-        if (overlap <= 0.01) return;
+    // Makes room for this many more bodies up front, e.g. before loading a large scene
+    public void reserve(int bodies) {
+        objects.ensureCapacity(objects.size() + bodies);
+        if (nextBodyId + bodies > bodiesById.length) {
+            bodiesById = Arrays.copyOf(bodiesById, nextBodyId + bodies);
+        }
+    }
 
-        //normal vector
-        double nx = dx / distance;
-        double ny = dy / distance;
+    public void applyImpulse(int id, double impulseX, double impulseY) {
+        if (getBody(id) instanceof RigidBody body) {
+            body.applyImpulse(impulseX, impulseY);
+        }
+    }
 
-        // Positional correction with small buffer to prevent re-collision
-        double correction = (overlap / 2) + 0.01;
-        double m1 = ballA.getMass();
-        double m2 = ballB.getMass();
-        double totalMass = m1 + m2;
+    public void setCollisionFilter(int id, int category, int mask, int group) {
+        PhysicsObject object = getBody(id);
+        if (object != null) object.setCollisionFilter(category, mask, group);
+    }
 
-        // Distribute positional correction based on static/dynamic status and mass ratios:
-        // - If one ball is static, apply full correction to the dynamic one.
-        // - If both are dynamic, distribute correction proportionally to inverse mass (more correction to lighter object).
-        double correctionA = ballA.isStatic ? 0 : (ballB.isStatic ? correction : correction * (m2 / totalMass));
-        double correctionB = ballB.isStatic ? 0 : (ballA.isStatic ? correction : correction * (m1 / totalMass));
+    public void setVelocity(int id, double velocityX, double velocityY) {
+        if (getBody(id) instanceof RigidBody body && !body.isStatic) {
+            body.velocityX = velocityX;
+            body.velocityY = velocityY;
+        }
+    }
 
-        ballA.getShape().setCenterX(ballA.getShape().getCenterX() + correctionA * nx);
-        ballA.getShape().setCenterY(ballA.getShape().getCenterY() + correctionA * ny);
+    private void register(PhysicsObject object) {
+        int id = object.getId();
+        if (id >= bodiesById.length) {
+            bodiesById = Arrays.copyOf(bodiesById, Math.max(id + 1, bodiesById.length * 2));
+        }
+        bodiesById[id] = object;
+        structureVersion++;
+        for (int i = 0; i < worldListeners.size(); i++) {
+            worldListeners.get(i).onSpawn(object);
+        }
+    }
 
-        ballB.getShape().setCenterX(ballB.getShape().getCenterX() - correctionB * nx);
-        ballB.getShape().setCenterY(ballB.getShape().getCenterY() - correctionB * ny);
+    // One solver pass over the pairs found by the last broadphase, then the terrain
+    public void collision() {
+        for (int p = 0; p < broadphase.getPairCount(); p++) {
+            PhysicsObject a = objects.get(broadphase.getFirst(p));
+            PhysicsObject b = objects.get(broadphase.getSecond(p));
+            if (a instanceof Ball ballA && b instanceof Ball ballB) {
+                loadState(ballA, stateA);
+                loadState(ballB, stateB);
+                double impulse = ContactSolver.resolveBalls(stateA, ballA.getRadius(), ballA.getMass(), ballA.isStatic, ballA.getMaterial(),
+                        stateB, ballB.getRadius(), ballB.getMass(), ballB.isStatic, ballB.getMaterial());
+                if (impulse >= 0) {
+                    storeState(ballA, stateA);
+                    storeState(ballB, stateB);
+                    // Normal from A towards B
+                    double dx = stateB[ContactSolver.X] - stateA[ContactSolver.X];
+                    double dy = stateB[ContactSolver.Y] - stateA[ContactSolver.Y];
+                    double distance = Math.sqrt(dx * dx + dy * dy);
+                    if (distance == 0) distance = 0.001;
+                    recordContact(ballA.getId(), ballB.getId(), dx / distance, dy / distance, impulse);
+                }
+            }
+            if ((a instanceof Ball && b instanceof Square) || (a instanceof Square && b instanceof Ball)) {
+                // Normalize order: ball always first
+                Ball ball = a instanceof Ball ? (Ball) a : (Ball) b;
+                Square square = a instanceof Square ? (Square) a : (Square) b;
+
+                double halfWidth = square.getWidth() / 2.0;
+                double halfHeight = square.getHeight() / 2.0;
+                loadState(ball, stateA);
+                double impulse = ContactSolver.resolveBallBox(stateA, ball.getRadius(), ball.getMass(), ball.getMaterial(),
+                        square.getCenterX() - halfWidth, square.getCenterY() - halfHeight,
+                        square.getCenterX() + halfWidth, square.getCenterY() + halfHeight, square.getMaterial(), contactNormal);
+                if (impulse >= 0) {
+                    storeState(ball, stateA);
+                    // Normal points from the square towards the ball
+                    recordContact(square.getId(), ball.getId(), contactNormal[0], contactNormal[1], impulse);
+                }
+            }
+        }
 
+        if (terrains.isEmpty()) return;
+        for (int i = 0; i < objects.size(); i++) {
+            PhysicsObject object = objects.get(i);
+            if (object instanceof Ball ball && !ball.isStatic) {
+                double r = ball.getRadius();
+                collideWithTerrain(ball, r, r);
+            } else if (object instanceof Square square && !square.isStatic) {
+                collideWithTerrain(square, square.getWidth() / 2.0, square.getHeight() / 2.0);
+            }
+        }
+    }
 
-        double vxRel = ballA.velocityX - ballB.velocityX;
-        double vyRel = ballA.velocityY - ballB.velocityY;
+    // Resolves a ball or square against every terrain segment near it, found with one query over all terrains
+    private void collideWithTerrain(RigidBody body, double halfWidth, double halfHeight) {
+        double minX = body.getCenterX() - halfWidth;
+        double minY = body.getCenterY() - halfHeight;
+        double maxX = body.getCenterX() + halfWidth;
+        double maxY = body.getCenterY() + halfHeight;
+        int hits = terrains.query(minX, minY, maxX, maxY, segmentHits);
+        if (hits > segmentHits.length) {
+            segmentHits = new int[Integer.highestOneBit(hits) << 1];
+            hits = terrains.query(minX, minY, maxX, maxY, segmentHits);
+        }
 
-        double restitution = Constants.RESTITUTION; // realistic bounce factor
+        loadState(body, stateA);
+        for (int h = 0; h < hits; h++) {
+            Terrain terrain = terrains.terrainOf(segmentHits[h]);
+            if (!CollisionFilter.canCollide(body, terrain)) continue;
+            int segment = terrains.segmentOf(segmentHits[h]);
+            double impulse = body instanceof Ball ball
+                    ? ContactSolver.resolveBallSegment(stateA, ball.getRadius(), ball.getMass(), ball.getMaterial(),
+                            terrain.getX1(segment), terrain.getY1(segment), terrain.getX2(segment), terrain.getY2(segment),
+                            terrain.getMaterial(), contactNormal)
+                    : ContactSolver.resolveBoxSegment(stateA, halfWidth, halfHeight, body.getMass(), body.getMaterial(),
+                            terrain.getX1(segment), terrain.getY1(segment), terrain.getX2(segment), terrain.getY2(segment),
+                            terrain.getMaterial(), contactNormal);
+            if (impulse < 0) continue;
+
+            storeState(body, stateA);
+            // Normal points from the terrain towards the body
+            recordContact(terrain.getId(), body.getId(), contactNormal[0], contactNormal[1], impulse);
+        }
+    }
 
-        double velAlongNormal = vxRel * nx + vyRel * ny;
+    private static void loadState(RigidBody body, double[] state) {
+        state[ContactSolver.X] = body.getCenterX();
+        state[ContactSolver.Y] = body.getCenterY();
+        state[ContactSolver.VELOCITY_X] = body.velocityX;
+        state[ContactSolver.VELOCITY_Y] = body.velocityY;
+    }
 
+    private static void storeState(RigidBody body, double[] state) {
+        body.setCenterX(state[ContactSolver.X]);
+        body.setCenterY(state[ContactSolver.Y]);
+        body.velocityX = state[ContactSolver.VELOCITY_X];
+        body.velocityY = state[ContactSolver.VELOCITY_Y];
+    }
 
-        if (velAlongNormal > 0) return; // balls are moving apart
+    // Normal must point from the body with id a towards the body with id b
+    private void recordContact(int a, int b, double nx, double ny, double impulse) {
+        long key = a < b ? ContactPairSet.key(a, b) : ContactPairSet.key(b, a);
+        int slot = currentContacts.insert(key);
+        if (a < b) {
+            currentContacts.setNormal(slot, nx, ny);
+        } else {
+            currentContacts.setNormal(slot, -nx, -ny);
+        }
+        currentContacts.addImpulse(slot, impulse);
+    }
 
+    // Compares this step's contacts against the previous step's and queues begin/persist/end events
+    private void emitContactEvents() {
+        for (int slot = 0; slot < currentContacts.capacity(); slot++) {
+            if (!currentContacts.isOccupied(slot)) continue;
+            long key = currentContacts.keyAt(slot);
+            ContactPhase phase = previousContacts.indexOf(key) >= 0 ? ContactPhase.Persist : ContactPhase.Begin;
+            contactEvents.push(phase, ContactPairSet.firstId(key), ContactPairSet.secondId(key),
+                    currentContacts.normalX(slot), currentContacts.normalY(slot), currentContacts.impulse(slot));
+        }
+        for (int slot = 0; slot < previousContacts.capacity(); slot++) {
+            if (!previousContacts.isOccupied(slot)) continue;
+            long key = previousContacts.keyAt(slot);
+            if (currentContacts.indexOf(key) >= 0) continue;
+            contactEvents.push(ContactPhase.End, ContactPairSet.firstId(key), ContactPairSet.secondId(key),
+                    previousContacts.normalX(slot), previousContacts.normalY(slot), 0);
+        }
 
-        double inverseMassA = ballA.isStatic ? 0 : 1 / m1;
-        double inverseMassB = ballB.isStatic ? 0 : 1 / m2;
+        ContactPairSet swap = previousContacts;
+        previousContacts = currentContacts;
+        currentContacts = swap;
+        currentContacts.clear();
+    }
 
-        double impulse = -(1 + restitution) * velAlongNormal / (inverseMassA + inverseMassB);
-        double impulseX = impulse * nx;
-        double impulseY = impulse * ny;
 
-        ballA.velocityX += ballA.isStatic ? 0 : impulseX * inverseMassA;
-        ballA.velocityY += ballA.isStatic ? 0 : impulseY * inverseMassA;
-        ballB.velocityX -= ballB.isStatic ? 0 : impulseX * inverseMassB;
-        ballB.velocityY -= ballB.isStatic ? 0 : impulseY * inverseMassB;
+// =================== STAGES ===================
+
+    /**
+     * Registers the world's step as scheduler stages, in pipeline order, plus the render sync as a frame stage.
+     * Stages that call into the UI or user listeners stay on the FX thread.
+     * Collisions are solved before the bodies move, as the world always did, so sensors and listeners see the
+     * positions after integration.
+     */
+    public void addStages(StageScheduler scheduler) {
+        scheduler.addStage(new Stage("input", EnumSet.of(Resource.Commands),
+                EnumSet.of(Resource.Commands, Resource.BodyList, Resource.BodyState, Resource.SceneGraph), true, this::input));
+        scheduler.addStage(new Stage("forces", EnumSet.of(Resource.BodyList, Resource.BodyState),
+                EnumSet.of(Resource.ForceField), false, this::prepareForces));
+        scheduler.addStage(new Stage("broadphase", EnumSet.of(Resource.BodyList, Resource.BodyState),
+                EnumSet.of(Resource.Pairs), false, this::broadphase));
+        scheduler.addStage(new Stage("solve", EnumSet.of(Resource.BodyList, Resource.Pairs),
+                EnumSet.of(Resource.BodyState, Resource.Contacts), false, this::solve));
+        scheduler.addStage(new Stage("integrate", EnumSet.of(Resource.BodyList, Resource.ForceField),
+                EnumSet.of(Resource.BodyState), false, this::integrate));
+        scheduler.addStage(new Stage("sensors", EnumSet.of(Resource.BodyList, Resource.BodyState),
+                EnumSet.of(Resource.SensorOverlaps), false, this::findSensorOverlaps));
+        // Listeners may touch bodies, spawn and despawn them, or submit commands
+        scheduler.addStage(new Stage("events", EnumSet.of(Resource.Contacts, Resource.SensorOverlaps),
+                EnumSet.of(Resource.Listeners, Resource.BodyList, Resource.BodyState, Resource.SceneGraph, Resource.Commands), true, this::dispatchEvents));
+        scheduler.addFrameStage(new Stage("render sync", EnumSet.of(Resource.BodyState),
+                EnumSet.of(Resource.SceneGraph), true, dt -> renderSync.sync()));
+    }
 
-        // --------- FRICTION IMPULSE (SLIDE) ---------
-        // Tangent vector
-        double tx = -ny;
-        double ty = nx;
+    // Runs one whole step on the calling thread, in the same order as the scheduler stages
+    @Override
+    public void update(double dt) {
+        input(dt);
+        prepareForces(dt);
+        broadphase(dt);
+        solve(dt);
+        integrate(dt);
+        findSensorOverlaps(dt);
+        dispatchEvents(dt);
+    }
 
-        // Relative velocity along tangent
-        double velAlongTangent = vxRel * tx + vyRel * ty;
+    private void input(double dt) {
+        if (timeline != null) timeline.record();
+        commands.drain(this);
+        if (++stepsSinceReorder >= Constants.REORDER_INTERVAL) {
+            mortonOrder.reorder(objects);
+            stepsSinceReorder = 0;
+        }
+    }
 
-        // Friction coefficient
-        double friction = Constants.FRICTION;
+    private void prepareForces(double dt) {
+        forceField.prepare(objects);
+    }
 
-        // Magnitude of friction impulse
-        double jt = -velAlongTangent / (inverseMassA + inverseMassB);
+    private void broadphase(double dt) {
+        broadphase.update(objects, Constants.BROADPHASE_MARGIN);
+    }
 
-        // Clamp jt to Coulomb's law (<= mu * normal impulse)
-        double maxFriction = friction * impulse;
-        jt = Math.max(-maxFriction, Math.min(jt, maxFriction));
+    private void solve(double dt) {
+        for (int i = 0; i < 5; i++) {
+            collision(); // repeat to resolve chains of collisions
+        }
+        emitContactEvents();
+    }
 
-        // Apply friction impulse
-        double frictionX = jt * tx;
-        double frictionY = jt * ty;
+    private void integrate(double dt) {
+        int n = objects.size();
+        if (n < Constants.PARALLEL_INTEGRATE_THRESHOLD) {
+            integrateRange(0, n, dt);
+            return;
+        }
+        for (int i = 0; i < INTEGRATE_CHUNKS; i++) {
+            integrateTasks[i].reinitialize();
+            integrateTasks[i].set((int) ((long) n * i / INTEGRATE_CHUNKS), (int) ((long) n * (i + 1) / INTEGRATE_CHUNKS), dt);
+            if (i > 0) integrateTasks[i].fork();
+        }
+        integrateTasks[0].compute();
+        // Same as StageScheduler: joining a running task from the FX thread would allocate a wait node
+        for (int i = INTEGRATE_CHUNKS - 1; i > 0; i--) {
+            IntegrateTask task = integrateTasks[i];
+            if (task.tryUnfork()) {
+                task.compute();
+            } else {
+                while (!task.isDone()) Thread.yield();
+                task.join();
+            }
+        }
+    }
 
-        ballA.velocityX += ballA.isStatic ? 0 : frictionX * inverseMassA;
-        ballA.velocityY += ballA.isStatic ? 0 : frictionY * inverseMassA;
-        ballB.velocityX -= ballB.isStatic ? 0 : frictionX * inverseMassB;
-        ballB.velocityY -= ballB.isStatic ? 0 : frictionY * inverseMassB;
+    // Bodies only touch their own state while integrating, so disjoint ranges can run at the same time
+    private void integrateRange(int from, int to, double dt) {
+        for (int i = from; i < to; i++) {
+            if (objects.get(i) instanceof RigidBody body) body.update(dt);
+        }
+    }
 
+    private void findSensorOverlaps(double dt) {
+        sensors.findOverlaps(objects);
+    }
 
-        if (Math.abs(ballA.velocityY) < 0.1) ballA.velocityY = 0;
-        if (Math.abs(ballA.velocityX) < 0.1) ballA.velocityX = 0;
-        if (Math.abs(ballB.velocityY) < 0.1) ballB.velocityY = 0;
-        if (Math.abs(ballB.velocityX) < 0.1) ballB.velocityX = 0;
+    private void dispatchEvents(double dt) {
+        contactEvents.drain(contactListeners);
+        sensors.dispatch();
     }
 
+    private final class IntegrateTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private int from, to;
+        private double dt;
 
-    @Override
-    public void update(double dt) {
-        for (int i = 0; i < 5; i++) {
-            collision(); // repeat to resolve chains of collisions
+        void set(int from, int to, double dt) {
+            this.from = from;
+            this.to = to;
+            this.dt = dt;
+        }
+
+        @Override
+        protected void compute() {
+            integrateRange(from, to, dt);
         }
     }
 }
@@ -0,0 +1,186 @@
+package collision;
+
+/**
+ * Static bounding-volume hierarchy over axis-aligned boxes.
+ * The tree is built once from the item bounds and stored in flat arrays; it is never refit,
+ * so it is meant for geometry that does not move (terrain, trigger zones).
+ * Queries walk the tree with a preallocated per-thread stack and write the indices of overlapping items into a caller-owned array,
+ * so the tree can be queried from several threads at once.
+ */
+public class AabbTree {
+    private static final int LEAF_SIZE = 4;
+
+    // Per node bounds
+    private final double[] nodeMinX;
+    private final double[] nodeMinY;
+    private final double[] nodeMaxX;
+    private final double[] nodeMaxY;
+    // Inner nodes: index of the left child (right child is stored in nodeRight). Leaves: -1
+    private final int[] nodeLeft;
+    private final int[] nodeRight;
+    // Leaves: range of items in the order array
+    private final int[] nodeStart;
+    private final int[] nodeCount;
+    private int usedNodes = 0;
+
+    // Item indices reordered so every leaf covers a contiguous range
+    private final int[] order;
+    private final double[] itemMinX;
+    private final double[] itemMinY;
+    private final double[] itemMaxX;
+    private final double[] itemMaxY;
+
+    private final ThreadLocal<int[]> stacks = ThreadLocal.withInitial(() -> new int[64]);
+
+    public AabbTree(double[] minX, double[] minY, double[] maxX, double[] maxY) {
+        int n = minX.length;
+        itemMinX = minX.clone();
+        itemMinY = minY.clone();
+        itemMaxX = maxX.clone();
+        itemMaxY = maxY.clone();
+
+        order = new int[n];
+        for (int i = 0; i < n; i++) order[i] = i;
+
+        // A binary tree with leaves of at least one item never has more than 2n - 1 nodes
+        int maxNodes = Math.max(1, 2 * n - 1);
+        nodeMinX = new double[maxNodes];
+        nodeMinY = new double[maxNodes];
+        nodeMaxX = new double[maxNodes];
+        nodeMaxY = new double[maxNodes];
+        nodeLeft = new int[maxNodes];
+        nodeRight = new int[maxNodes];
+        nodeStart = new int[maxNodes];
+        nodeCount = new int[maxNodes];
+
+        if (n > 0) build(0, n);
+    }
+
+    public int size() {
+        return order.length;
+    }
+
+    /**
+     * Writes the indices of all items whose box overlaps the query box into out and returns how many overlap.
+     * If the result is larger than out.length only the first out.length indices are written,
+     * so callers should grow the array and query again.
+     */
+    public int query(double minX, double minY, double maxX, double maxY, int[] out) {
+        if (order.length == 0) return 0;
+
+        int[] stack = stacks.get();
+        int hits = 0;
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            if (nodeMaxX[node] < minX || nodeMinX[node] > maxX || nodeMaxY[node] < minY || nodeMinY[node] > maxY) {
+                continue;
+            }
+
+            if (nodeLeft[node] < 0) {
+                int end = nodeStart[node] + nodeCount[node];
+                for (int i = nodeStart[node]; i < end; i++) {
+                    int item = order[i];
+                    if (itemMaxX[item] < minX || itemMinX[item] > maxX || itemMaxY[item] < minY || itemMinY[item] > maxY) {
+                        continue;
+                    }
+                    if (hits < out.length) out[hits] = item;
+                    hits++;
+                }
+            } else {
+                if (top + 2 > stack.length) {
+                    int[] bigger = new int[stack.length * 2];
+                    System.arraycopy(stack, 0, bigger, 0, top);
+                    stack = bigger;
+                    stacks.set(stack);
+                }
+                stack[top++] = nodeLeft[node];
+                stack[top++] = nodeRight[node];
+            }
+        }
+        return hits;
+    }
+
+    // Builds the subtree for order[start, end) and returns its node index
+    private int build(int start, int end) {
+        int node = usedNodes++;
+
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        double centroidMinX = Double.POSITIVE_INFINITY, centroidMinY = Double.POSITIVE_INFINITY;
+        double centroidMaxX = Double.NEGATIVE_INFINITY, centroidMaxY = Double.NEGATIVE_INFINITY;
+        for (int i = start; i < end; i++) {
+            int item = order[i];
+            minX = Math.min(minX, itemMinX[item]);
+            minY = Math.min(minY, itemMinY[item]);
+            maxX = Math.max(maxX, itemMaxX[item]);
+            maxY = Math.max(maxY, itemMaxY[item]);
+
+            double cx = centroid(item, true);
+            double cy = centroid(item, false);
+            centroidMinX = Math.min(centroidMinX, cx);
+            centroidMinY = Math.min(centroidMinY, cy);
+            centroidMaxX = Math.max(centroidMaxX, cx);
+            centroidMaxY = Math.max(centroidMaxY, cy);
+        }
+        nodeMinX[node] = minX;
+        nodeMinY[node] = minY;
+        nodeMaxX[node] = maxX;
+        nodeMaxY[node] = maxY;
+
+        if (end - start <= LEAF_SIZE) {
+            makeLeaf(node, start, end);
+            return node;
+        }
+
+        // Median split along the axis where the centroids are spread the most
+        boolean splitX = (centroidMaxX - centroidMinX) >= (centroidMaxY - centroidMinY);
+        int mid = (start + end) >>> 1;
+        select(start, end - 1, mid, splitX);
+
+        nodeStart[node] = 0;
+        nodeCount[node] = 0;
+        nodeLeft[node] = build(start, mid);
+        nodeRight[node] = build(mid, end);
+        return node;
+    }
+
+    private void makeLeaf(int node, int start, int end) {
+        nodeLeft[node] = -1;
+        nodeRight[node] = -1;
+        nodeStart[node] = start;
+        nodeCount[node] = end - start;
+    }
+
+    private double centroid(int item, boolean xAxis) {
+        return xAxis ? (itemMinX[item] + itemMaxX[item]) * 0.5 : (itemMinY[item] + itemMaxY[item]) * 0.5;
+    }
+
+    // Quickselect: partially orders order[lo, hi] so the k-th item by centroid is at position k
+    private void select(int lo, int hi, int k, boolean xAxis) {
+        while (lo < hi) {
+            double pivot = centroid(order[(lo + hi) >>> 1], xAxis);
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (centroid(order[i], xAxis) < pivot) i++;
+                while (centroid(order[j], xAxis) > pivot) j--;
+                if (i <= j) {
+                    int tmp = order[i];
+                    order[i] = order[j];
+                    order[j] = tmp;
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) {
+                hi = j;
+            } else if (k >= i) {
+                lo = i;
+            } else {
+                return;
+            }
+        }
+    }
+}
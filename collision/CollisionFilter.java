@@ -0,0 +1,28 @@
+package collision;
+
+import interfaces.PhysicsObject;
+
+/**
+ * Decides from bitfields alone whether two bodies may touch, without looking at their geometry.
+ * Every body belongs to the categories set in its category bits and only collides with bodies whose
+ * category is in its mask, in both directions. Bodies sharing a non-zero group never collide with each other,
+ * whatever their categories, which keeps e.g. the parts of one ragdoll or an emitter's particles apart.
+ */
+public final class CollisionFilter {
+    public static final int DEFAULT_CATEGORY = 1;
+    public static final int ALL = -1;           // Mask that accepts every category
+    public static final int NO_GROUP = 0;
+
+    private CollisionFilter() {
+    }
+
+    public static boolean canCollide(int categoryA, int maskA, int groupA, int categoryB, int maskB, int groupB) {
+        if (groupA != NO_GROUP && groupA == groupB) return false;
+        return (categoryA & maskB) != 0 && (categoryB & maskA) != 0;
+    }
+
+    public static boolean canCollide(PhysicsObject a, PhysicsObject b) {
+        return canCollide(a.getCollisionCategory(), a.getCollisionMask(), a.getCollisionGroup(),
+                b.getCollisionCategory(), b.getCollisionMask(), b.getCollisionGroup());
+    }
+}
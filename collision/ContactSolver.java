@@ -0,0 +1,284 @@
+package collision;
+
+import materials.Materials;
+
+/**
+ * Contact resolution for a ball against another ball, an axis-aligned box or a terrain segment, and for a box
+ * against a terrain segment, on plain values.
+ * A body's state is passed as {x, y, velocityX, velocityY} of its center and updated in place: pushed out of the
+ * overlap, then given the normal impulse and Coulomb friction for the pair's materials.
+ * PhysicsWorld and TrajectoryPredictor both resolve contacts through here, so the launch preview bounces the way
+ * a real ball would. It still differs once other bodies move, since the preview keeps them frozen.
+ */
+public final class ContactSolver {
+    public static final int X = 0;
+    public static final int Y = 1;
+    public static final int VELOCITY_X = 2;
+    public static final int VELOCITY_Y = 3;
+
+    private ContactSolver() {
+    }
+
+    // Returns the normal impulse applied, 0 if the balls were already separating, or -1 if they were not really touching
+    public static double resolveBalls(double[] a, double radiusA, double massA, boolean staticA, int materialA,
+                                      double[] b, double radiusB, double massB, boolean staticB, int materialB) {
+        double dx = a[X] - b[X];
+        double dy = a[Y] - b[Y];
+        double distance = Math.sqrt(dx * dx + dy * dy);
+        if (distance == 0) distance = 0.001;
+
+        double overlap = radiusA + radiusB - distance;
+        if (overlap <= 0.01) return -1;
+
+        //normal vector
+        double nx = dx / distance;
+        double ny = dy / distance;
+
+        // Positional correction with small buffer to prevent re-collision
+        double correction = (overlap / 2) + 0.01;
+        double totalMass = massA + massB;
+
+        // Distribute positional correction based on static/dynamic status and mass ratios:
+        // - If one ball is static, apply full correction to the dynamic one.
+        // - If both are dynamic, distribute correction proportionally to inverse mass (more correction to lighter object).
+        double correctionA = staticA ? 0 : (staticB ? correction : correction * (massB / totalMass));
+        double correctionB = staticB ? 0 : (staticA ? correction : correction * (massA / totalMass));
+
+        a[X] += correctionA * nx;
+        a[Y] += correctionA * ny;
+        b[X] -= correctionB * nx;
+        b[Y] -= correctionB * ny;
+
+        double vxRel = a[VELOCITY_X] - b[VELOCITY_X];
+        double vyRel = a[VELOCITY_Y] - b[VELOCITY_Y];
+
+        double restitution = Materials.restitution(materialA, materialB);
+        double velAlongNormal = vxRel * nx + vyRel * ny;
+
+        if (velAlongNormal > 0) return 0; // balls are moving apart
+
+        double inverseMassA = staticA ? 0 : 1 / massA;
+        double inverseMassB = staticB ? 0 : 1 / massB;
+
+        double impulse = -(1 + restitution) * velAlongNormal / (inverseMassA + inverseMassB);
+        double impulseX = impulse * nx;
+        double impulseY = impulse * ny;
+
+        a[VELOCITY_X] += staticA ? 0 : impulseX * inverseMassA;
+        a[VELOCITY_Y] += staticA ? 0 : impulseY * inverseMassA;
+        b[VELOCITY_X] -= staticB ? 0 : impulseX * inverseMassB;
+        b[VELOCITY_Y] -= staticB ? 0 : impulseY * inverseMassB;
+
+        // --------- FRICTION IMPULSE (SLIDE) ---------
+        // Tangent vector
+        double tx = -ny;
+        double ty = nx;
+
+        // Relative velocity along tangent
+        double velAlongTangent = vxRel * tx + vyRel * ty;
+
+        // Magnitude of friction impulse
+        double jt = -velAlongTangent / (inverseMassA + inverseMassB);
+
+        // Coulomb's law: the contact sticks while jt <= static mu * normal impulse,
+        // beyond that it slides and friction is capped by the dynamic coefficient
+        if (Math.abs(jt) > Materials.staticFriction(materialA, materialB) * impulse) {
+            double maxFriction = Materials.dynamicFriction(materialA, materialB) * impulse;
+            jt = Math.max(-maxFriction, Math.min(jt, maxFriction));
+        }
+
+        // Apply friction impulse
+        double frictionX = jt * tx;
+        double frictionY = jt * ty;
+
+        a[VELOCITY_X] += staticA ? 0 : frictionX * inverseMassA;
+        a[VELOCITY_Y] += staticA ? 0 : frictionY * inverseMassA;
+        b[VELOCITY_X] -= staticB ? 0 : frictionX * inverseMassB;
+        b[VELOCITY_Y] -= staticB ? 0 : frictionY * inverseMassB;
+
+        if (Math.abs(a[VELOCITY_Y]) < 0.1) a[VELOCITY_Y] = 0;
+        if (Math.abs(a[VELOCITY_X]) < 0.1) a[VELOCITY_X] = 0;
+        if (Math.abs(b[VELOCITY_Y]) < 0.1) b[VELOCITY_Y] = 0;
+        if (Math.abs(b[VELOCITY_X]) < 0.1) b[VELOCITY_X] = 0;
+
+        return impulse;
+    }
+
+    /**
+     * Pushes a ball out of an immovable axis-aligned box. The normal, pointing from the box towards the ball,
+     * goes to normal[0..1]. Returns the normal impulse applied, 0 if the ball was not moving into the box,
+     * or -1 if they don't touch.
+     */
+    public static double resolveBallBox(double[] ball, double radius, double mass, int material,
+                                        double minX, double minY, double maxX, double maxY, int boxMaterial, double[] normal) {
+        // Closest point on the box to the ball
+        double closestX = Math.max(minX, Math.min(ball[X], maxX));
+        double closestY = Math.max(minY, Math.min(ball[Y], maxY));
+        double dx = ball[X] - closestX;
+        double dy = ball[Y] - closestY;
+
+        double distanceSquared = dx * dx + dy * dy;
+        if (distanceSquared > radius * radius) return -1;
+
+        double distance = Math.sqrt(distanceSquared);
+        if (distance == 0) {
+            dx = 0;
+            dy = -1;
+            distance = 1;
+        }
+
+        double overlap = radius - distance;
+        double nx = dx / distance;
+        double ny = dy / distance;
+        ball[X] += nx * overlap;
+        ball[Y] += ny * overlap;
+
+        // Only apply impulse if moving into the surface
+        double velAlongNormal = ball[VELOCITY_X] * nx + ball[VELOCITY_Y] * ny;
+        double impulse = 0;
+        if (velAlongNormal < 0) {
+            impulse = -(1 + Materials.restitution(material, boxMaterial)) * velAlongNormal * mass;
+            ball[VELOCITY_X] += (impulse / mass) * nx;
+            ball[VELOCITY_Y] += (impulse / mass) * ny;
+        }
+
+        normal[0] = nx;
+        normal[1] = ny;
+        return impulse;
+    }
+
+    /**
+     * Pushes a ball out of an immovable segment from (x1, y1) to (x2, y2), with friction along it.
+     * Same results and normal convention as resolveBallBox.
+     */
+    public static double resolveBallSegment(double[] ball, double radius, double mass, int material,
+                                            double x1, double y1, double x2, double y2, int segmentMaterial, double[] normal) {
+        double ex = x2 - x1;
+        double ey = y2 - y1;
+
+        // Closest point on the segment to the ball center
+        double lengthSquared = ex * ex + ey * ey;
+        double t = lengthSquared == 0 ? 0 : Math.max(0, Math.min(((ball[X] - x1) * ex + (ball[Y] - y1) * ey) / lengthSquared, 1));
+        double dx = ball[X] - (x1 + ex * t);
+        double dy = ball[Y] - (y1 + ey * t);
+
+        double distanceSquared = dx * dx + dy * dy;
+        if (distanceSquared >= radius * radius) return -1;
+
+        double distance = Math.sqrt(distanceSquared);
+        double overlap = radius - distance;
+        double nx, ny;
+        if (distance == 0 && lengthSquared == 0) {
+            nx = 0;
+            ny = -1;
+        } else if (distance == 0) {
+            // Center exactly on the line: push out along the segment's left-hand normal
+            double length = Math.sqrt(lengthSquared);
+            nx = ey / length;
+            ny = -ex / length;
+        } else {
+            nx = dx / distance;
+            ny = dy / distance;
+        }
+
+        // The segment is immovable, so the ball takes the whole correction
+        ball[X] += nx * overlap;
+        ball[Y] += ny * overlap;
+
+        double velAlongNormal = ball[VELOCITY_X] * nx + ball[VELOCITY_Y] * ny;
+        double impulse = 0;
+        if (velAlongNormal < 0) {
+            impulse = -(1 + Materials.restitution(material, segmentMaterial)) * velAlongNormal * mass;
+            ball[VELOCITY_X] += (impulse / mass) * nx;
+            ball[VELOCITY_Y] += (impulse / mass) * ny;
+
+            // Coulomb friction along the segment: stick if static friction can hold, otherwise slide
+            double tx = -ny;
+            double ty = nx;
+            double velAlongTangent = ball[VELOCITY_X] * tx + ball[VELOCITY_Y] * ty;
+            double change = -velAlongTangent;
+            if (Math.abs(change) > Materials.staticFriction(material, segmentMaterial) * impulse / mass) {
+                double maxChange = Materials.dynamicFriction(material, segmentMaterial) * impulse / mass;
+                change = Math.max(-maxChange, Math.min(change, maxChange));
+            }
+            ball[VELOCITY_X] += change * tx;
+            ball[VELOCITY_Y] += change * ty;
+        }
+
+        normal[0] = nx;
+        normal[1] = ny;
+        return impulse;
+    }
+
+    /**
+     * Pushes an axis-aligned box that doesn't rotate out of an immovable segment, along the axis of least
+     * penetration among x, y and the segment's normal, with friction along the contact.
+     * Same results and normal convention as resolveBallBox, with the normal pointing towards the box.
+     */
+    public static double resolveBoxSegment(double[] box, double halfWidth, double halfHeight, double mass, int material,
+                                           double x1, double y1, double x2, double y2, int segmentMaterial, double[] normal) {
+        // X axis: the box may leave to the left or the right of the segment's extent, whichever is shorter
+        double toRight = Math.max(x1, x2) - (box[X] - halfWidth);
+        double toLeft = (box[X] + halfWidth) - Math.min(x1, x2);
+        if (toRight <= 0 || toLeft <= 0) return -1;
+        double depth = Math.min(toRight, toLeft);
+        double nx = toRight < toLeft ? 1 : -1;
+        double ny = 0;
+
+        double toBelow = Math.max(y1, y2) - (box[Y] - halfHeight);
+        double toAbove = (box[Y] + halfHeight) - Math.min(y1, y2);
+        if (toBelow <= 0 || toAbove <= 0) return -1;
+        if (Math.min(toBelow, toAbove) < depth) {
+            depth = Math.min(toBelow, toAbove);
+            nx = 0;
+            ny = toBelow < toAbove ? 1 : -1;
+        }
+
+        // Segment normal: the segment projects to a single point, the box to an interval around its center
+        double ex = x2 - x1;
+        double ey = y2 - y1;
+        double length = Math.sqrt(ex * ex + ey * ey);
+        if (length > 0) {
+            double sx = ey / length;
+            double sy = -ex / length;
+            double distance = (box[X] - x1) * sx + (box[Y] - y1) * sy;
+            double reach = halfWidth * Math.abs(sx) + halfHeight * Math.abs(sy);
+            double overlap = reach - Math.abs(distance);
+            if (overlap <= 0) return -1;
+            if (overlap < depth) {
+                depth = overlap;
+                double side = distance < 0 ? -1 : 1;
+                nx = sx * side;
+                ny = sy * side;
+            }
+        }
+
+        // The segment is immovable, so the box takes the whole correction
+        box[X] += nx * depth;
+        box[Y] += ny * depth;
+
+        double velAlongNormal = box[VELOCITY_X] * nx + box[VELOCITY_Y] * ny;
+        double impulse = 0;
+        if (velAlongNormal < 0) {
+            impulse = -(1 + Materials.restitution(material, segmentMaterial)) * velAlongNormal * mass;
+            box[VELOCITY_X] += (impulse / mass) * nx;
+            box[VELOCITY_Y] += (impulse / mass) * ny;
+
+            // Coulomb friction along the contact, as for a ball on a segment
+            double tx = -ny;
+            double ty = nx;
+            double velAlongTangent = box[VELOCITY_X] * tx + box[VELOCITY_Y] * ty;
+            double change = -velAlongTangent;
+            if (Math.abs(change) > Materials.staticFriction(material, segmentMaterial) * impulse / mass) {
+                double maxChange = Materials.dynamicFriction(material, segmentMaterial) * impulse / mass;
+                change = Math.max(-maxChange, Math.min(change, maxChange));
+            }
+            box[VELOCITY_X] += change * tx;
+            box[VELOCITY_Y] += change * ty;
+        }
+
+        normal[0] = nx;
+        normal[1] = ny;
+        return impulse;
+    }
+}
@@ -0,0 +1,109 @@
+package collision;
+
+import interfaces.PhysicsObject;
+import shapes.RigidBody;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Re-sorts a body list by the Z-order (Morton) code of each body's position, so bodies that are close
+ * in space end up close in the list and the collision and integration sweeps walk it in spatial order.
+ * The copying garbage collectors move objects roughly in the order they are reached from the list,
+ * so over time the bodies themselves also end up laid out in that order in memory.
+ * Uses an LSD radix sort on preallocated buffers, so reordering does not allocate once the buffers fit the scene.
+ */
+public class MortonOrder {
+    public static final int BITS_PER_AXIS = 16;
+    public static final int AXIS_CELLS = (1 << BITS_PER_AXIS) - 1;
+
+    private long[] keys = new long[0];
+    private long[] scratch = new long[0];
+    private PhysicsObject[] bodies = new PhysicsObject[0];
+    private final int[] counts = new int[256];
+
+    // Sorts the list in place. Entries that are not rigid bodies sort to the end
+    public void reorder(List<PhysicsObject> objects) {
+        int n = objects.size();
+        if (n < 2) return;
+        ensureCapacity(n);
+
+        // Quantize positions inside the scene's current bounds
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < n; i++) {
+            if (objects.get(i) instanceof RigidBody body) {
+                minX = Math.min(minX, body.getCenterX());
+                minY = Math.min(minY, body.getCenterY());
+                maxX = Math.max(maxX, body.getCenterX());
+                maxY = Math.max(maxY, body.getCenterY());
+            }
+        }
+        double scaleX = maxX > minX ? AXIS_CELLS / (maxX - minX) : 0;
+        double scaleY = maxY > minY ? AXIS_CELLS / (maxY - minY) : 0;
+
+        for (int i = 0; i < n; i++) {
+            PhysicsObject object = objects.get(i);
+            bodies[i] = object;
+            long code = 0xFFFFFFFFL;
+            if (object instanceof RigidBody body) {
+                code = encode((int) ((body.getCenterX() - minX) * scaleX), (int) ((body.getCenterY() - minY) * scaleY));
+            }
+            // Code in the high half, original index in the low half
+            keys[i] = (code << 32) | i;
+        }
+
+        sortByHighHalf(keys, scratch, counts, n);
+
+        for (int i = 0; i < n; i++) {
+            objects.set(i, bodies[(int) keys[i]]);
+        }
+        Arrays.fill(bodies, 0, n, null); // Don't keep despawned bodies reachable
+    }
+
+    // Interleaves the bits of x and y (x in the even bits)
+    public static long encode(int x, int y) {
+        return spread(x) | (spread(y) << 1);
+    }
+
+    private static long spread(int value) {
+        long v = value & 0xFFFFL;
+        v = (v | (v << 8)) & 0x00FF00FFL;
+        v = (v | (v << 4)) & 0x0F0F0F0FL;
+        v = (v | (v << 2)) & 0x33333333L;
+        v = (v | (v << 1)) & 0x55555555L;
+        return v;
+    }
+
+    /**
+     * Stable LSD radix sort of keys[0, n) on bits 32..63 only, whatever is in the low half rides along.
+     * scratch must hold at least n entries and counts 256. The result ends up back in keys.
+     */
+    public static void sortByHighHalf(long[] keys, long[] scratch, int[] counts, int n) {
+        long[] from = keys;
+        long[] to = scratch;
+        for (int shift = 32; shift < 64; shift += 8) {
+            Arrays.fill(counts, 0);
+            for (int i = 0; i < n; i++) counts[(int) ((from[i] >>> shift) & 0xFF)]++;
+            int sum = 0;
+            for (int b = 0; b < 256; b++) {
+                int c = counts[b];
+                counts[b] = sum;
+                sum += c;
+            }
+            for (int i = 0; i < n; i++) to[counts[(int) ((from[i] >>> shift) & 0xFF)]++] = from[i];
+            long[] swap = from;
+            from = to;
+            to = swap;
+        }
+        // An even number of passes leaves the result back in keys
+    }
+
+    private void ensureCapacity(int n) {
+        if (keys.length >= n) return;
+        int capacity = Math.max(n, keys.length * 2);
+        keys = new long[capacity];
+        scratch = new long[capacity];
+        bodies = new PhysicsObject[capacity];
+    }
+}
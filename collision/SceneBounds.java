@@ -0,0 +1,85 @@
+package collision;
+
+import enums.Constants;
+import materials.Materials;
+
+import static collision.ContactSolver.VELOCITY_X;
+import static collision.ContactSolver.VELOCITY_Y;
+import static collision.ContactSolver.X;
+import static collision.ContactSolver.Y;
+
+/**
+ * A ball against the floor and side walls of the scene, on the same {x, y, velocityX, velocityY} state as ContactSolver.
+ * A dynamic Ball steps through here, and so does the launch preview in TrajectoryPredictor.
+ * A step is settle, then integration by the caller, then resolve.
+ */
+public final class SceneBounds {
+    public static final double REST_SPEED = 5;          // Below this vertical speed on the floor the ball counts as resting
+
+    private static final double FLOOR_MASS = 1e10;
+
+    private SceneBounds() {
+    }
+
+    /**
+     * Stops a ball that lies on the floor with hardly any vertical speed. Returns whether it is resting,
+     * in which case the caller integrates it without downward acceleration.
+     */
+    public static boolean settle(double[] ball, double radius, double floorY) {
+        boolean resting = onFloor(ball, radius, floorY) && Math.abs(ball[VELOCITY_Y]) < REST_SPEED;
+        if (resting) ball[VELOCITY_Y] = 0;
+        return resting;
+    }
+
+    /**
+     * Bounces an integrated ball off the floor and the walls at x = 0 and x = floorX, then applies rolling friction
+     * while it rests on the floor.
+     */
+    public static void resolve(double[] ball, double dt, double radius, double mass, int material, double floorX, double floorY) {
+        double wallRestitution = Materials.restitution(material, Materials.WALL);
+
+        if (onFloor(ball, radius, floorY) && Math.abs(ball[VELOCITY_Y]) < REST_SPEED) {
+            // Ball is basically resting, no bounce needed
+            ball[VELOCITY_Y] = 0;
+        } else if (ball[Y] + radius > floorY && ball[VELOCITY_Y] > 0) {  // only bounce if moving down into floor
+            ball[Y] = floorY - radius;
+            double impulse = -(1 + wallRestitution) * ball[VELOCITY_Y] / (1 / mass + 1 / FLOOR_MASS);
+            ball[VELOCITY_Y] += impulse / mass;
+
+            // Simulating friction by reducing X slightly
+            ball[VELOCITY_X] *= 0.95;
+        }
+
+        // Right wall
+        if (ball[X] + radius > floorX) {
+            ball[X] = floorX - radius;
+            double impulse = -(1 + wallRestitution) * ball[VELOCITY_X] * mass;
+            ball[VELOCITY_X] += impulse / mass;
+        }
+
+        // Left wall
+        if (ball[X] - radius < 0) {
+            ball[X] = radius;
+            double impulse = -(1 + wallRestitution) * ball[VELOCITY_X] * mass;
+            ball[VELOCITY_X] += impulse / mass;
+        }
+
+        if (onFloor(ball, radius, floorY) && Math.abs(ball[VELOCITY_Y]) < REST_SPEED) {
+            // Rolling on the floor: friction slows the horizontal velocity down to zero
+            double frictionAccel = Materials.dynamicFriction(material, Materials.WALL) * Constants.GRAVITY;
+            if (ball[VELOCITY_X] > 0) {
+                ball[VELOCITY_X] = Math.max(0, ball[VELOCITY_X] - frictionAccel * dt);
+            } else if (ball[VELOCITY_X] < 0) {
+                ball[VELOCITY_X] = Math.min(0, ball[VELOCITY_X] + frictionAccel * dt);
+            }
+        }
+
+        // Clamp velocities close to zero to exactly zero
+        if (Math.abs(ball[VELOCITY_Y]) < 0.01) ball[VELOCITY_Y] = 0;
+        if (Math.abs(ball[VELOCITY_X]) < 0.01) ball[VELOCITY_X] = 0;
+    }
+
+    private static boolean onFloor(double[] ball, double radius, double floorY) {
+        return ball[Y] + radius >= floorY - 0.5; // 0.5 is a small threshold to tolerate minor overshoot
+    }
+}
@@ -0,0 +1,137 @@
+package collision;
+
+import events.ContactPairSet;
+import interfaces.PhysicsObject;
+import interfaces.SensorListener;
+import shapes.Ball;
+import shapes.Sensor;
+import shapes.Square;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The world's sensors and the bodies overlapping them.
+ * Sensors are indexed by an AabbTree that is rebuilt only when a sensor is added or removed, so each body costs
+ * one tree query plus a circle or box test per nearby sensor. Overlapping (sensor, body) pairs go into a pair set
+ * every step, and comparing it with the previous step's set gives the enter and exit events.
+ */
+public class SensorIndex {
+    private final List<Sensor> sensors = new ArrayList<>();
+    private final List<Sensor> sensorsView = Collections.unmodifiableList(sensors);
+    private final List<SensorListener> listeners = new ArrayList<>();
+    private AabbTree tree;                  // Null until the first update after the sensors changed
+    private int[] hits = new int[16];
+
+    // Pairs keyed by (sensor id, body id) overlapping in the previous and in the current step
+    private ContactPairSet previous = new ContactPairSet(64);
+    private ContactPairSet current = new ContactPairSet(64);
+
+    public void add(Sensor sensor) {
+        sensors.add(sensor);
+        tree = null;
+    }
+
+    public void remove(Sensor sensor) {
+        sensors.remove(sensor);
+        tree = null;
+    }
+
+    // Drops every sensor. Overlaps still recorded are reported as exits on the next dispatch
+    public void clear() {
+        sensors.clear();
+        tree = null;
+    }
+
+    public List<Sensor> getSensors() {
+        return sensorsView;
+    }
+
+    public void addListener(SensorListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(SensorListener listener) {
+        listeners.remove(listener);
+    }
+
+    // Finds the overlaps of this step. Only reads the bodies, so it may run off the FX thread
+    public void findOverlaps(List<PhysicsObject> objects) {
+        if (sensors.isEmpty()) return;
+        if (tree == null) rebuild();
+
+        for (int i = 0; i < objects.size(); i++) {
+            PhysicsObject object = objects.get(i);
+            if (object instanceof Ball ball) {
+                double r = ball.getRadius();
+                collect(ball, ball.getCenterX() - r, ball.getCenterY() - r, ball.getCenterX() + r, ball.getCenterY() + r, r);
+            } else if (object instanceof Square square) {
+                double halfWidth = square.getWidth() / 2;
+                double halfHeight = square.getHeight() / 2;
+                collect(square, square.getCenterX() - halfWidth, square.getCenterY() - halfHeight,
+                        square.getCenterX() + halfWidth, square.getCenterY() + halfHeight, 0);
+            }
+        }
+    }
+
+    // Reports what changed since the last dispatch to the listeners
+    public void dispatch() {
+        if (current.size() == 0 && previous.size() == 0) return;
+
+        for (int slot = 0; slot < current.capacity(); slot++) {
+            if (!current.isOccupied(slot)) continue;
+            long key = current.keyAt(slot);
+            if (previous.indexOf(key) >= 0) continue;
+            for (int l = 0; l < listeners.size(); l++) {
+                listeners.get(l).onEnter(ContactPairSet.firstId(key), ContactPairSet.secondId(key));
+            }
+        }
+        for (int slot = 0; slot < previous.capacity(); slot++) {
+            if (!previous.isOccupied(slot)) continue;
+            long key = previous.keyAt(slot);
+            if (current.indexOf(key) >= 0) continue;
+            for (int l = 0; l < listeners.size(); l++) {
+                listeners.get(l).onExit(ContactPairSet.firstId(key), ContactPairSet.secondId(key));
+            }
+        }
+
+        ContactPairSet swap = previous;
+        previous = current;
+        current = swap;
+        current.clear();
+    }
+
+    // Records every sensor overlapping the body's bounds and, for balls (radius > 0), its circle
+    private void collect(PhysicsObject body, double minX, double minY, double maxX, double maxY, double radius) {
+        int count = tree.query(minX, minY, maxX, maxY, hits);
+        if (count > hits.length) {
+            hits = new int[Integer.highestOneBit(count) << 1];
+            count = tree.query(minX, minY, maxX, maxY, hits);
+        }
+        for (int h = 0; h < count; h++) {
+            Sensor sensor = sensors.get(hits[h]);
+            if (!CollisionFilter.canCollide(sensor, body)) continue;
+            boolean overlaps = radius > 0
+                    ? sensor.overlapsCircle((minX + maxX) / 2, (minY + maxY) / 2, radius)
+                    : sensor.overlapsBox(minX, minY, maxX, maxY);
+            if (overlaps) current.insert(ContactPairSet.key(sensor.getId(), body.getId()));
+        }
+    }
+
+    private void rebuild() {
+        int n = sensors.size();
+        double[] minX = new double[n];
+        double[] minY = new double[n];
+        double[] maxX = new double[n];
+        double[] maxY = new double[n];
+        for (int i = 0; i < n; i++) {
+            Sensor sensor = sensors.get(i);
+            minX[i] = sensor.getCenterX() - sensor.getHalfWidth();
+            minY[i] = sensor.getCenterY() - sensor.getHalfHeight();
+            maxX[i] = sensor.getCenterX() + sensor.getHalfWidth();
+            maxY[i] = sensor.getCenterY() + sensor.getHalfHeight();
+        }
+        tree = new AabbTree(minX, minY, maxX, maxY);
+    }
+}
@@ -0,0 +1,114 @@
+package collision;
+
+import interfaces.PhysicsObject;
+import shapes.Ball;
+import shapes.Square;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Broadphase that finds the bodies whose bounds overlap, so the solver only visits pairs that can touch.
+ * Bounds are sorted by their left edge with a radix sort and swept once: each body is only compared with the
+ * bodies that start before its right edge ends. Bounds are grown by a margin so that pairs that come into contact
+ * during the solver's passes over the same step are not missed.
+ * Pairs are stored as indices into the object list and stay valid until the list changes.
+ */
+public class SweepAndPrune {
+    private int count = 0;
+    private double[] minX = new double[0];
+    private double[] minY = new double[0];
+    private double[] maxX = new double[0];
+    private double[] maxY = new double[0];
+    private long[] keys = new long[0];
+    private long[] scratch = new long[0];
+    private final int[] counts = new int[256];
+
+    private int[] pairs = new int[256];         // a0, b0, a1, b1, ...
+    private int pairCount = 0;
+
+    public void update(List<PhysicsObject> objects, double margin) {
+        ensureCapacity(objects.size());
+        count = 0;
+        for (int i = 0; i < objects.size(); i++) {
+            PhysicsObject object = objects.get(i);
+            double halfWidth, halfHeight, x, y;
+            if (object instanceof Ball ball) {
+                halfWidth = halfHeight = ball.getRadius();
+                x = ball.getCenterX();
+                y = ball.getCenterY();
+            } else if (object instanceof Square square) {
+                halfWidth = square.getWidth() / 2;
+                halfHeight = square.getHeight() / 2;
+                x = square.getCenterX();
+                y = square.getCenterY();
+            } else {
+                continue;
+            }
+            minX[i] = x - halfWidth - margin;
+            minY[i] = y - halfHeight - margin;
+            maxX[i] = x + halfWidth + margin;
+            maxY[i] = y + halfHeight + margin;
+            keys[count++] = (sortableBits((float) minX[i]) << 32) | i;
+        }
+        MortonOrder.sortByHighHalf(keys, scratch, counts, count);
+
+        pairCount = 0;
+        for (int s = 0; s < count; s++) {
+            int a = (int) keys[s];
+            PhysicsObject objectA = objects.get(a);
+            int categoryA = objectA.getCollisionCategory();
+            int maskA = objectA.getCollisionMask();
+            int groupA = objectA.getCollisionGroup();
+            for (int t = s + 1; t < count; t++) {
+                int b = (int) keys[t];
+                if (minX[b] > maxX[a]) break;
+                PhysicsObject objectB = objects.get(b);
+                // Filter bits before the remaining geometric test
+                if (!CollisionFilter.canCollide(categoryA, maskA, groupA, objectB.getCollisionCategory(), objectB.getCollisionMask(), objectB.getCollisionGroup())) {
+                    continue;
+                }
+                if (minY[b] > maxY[a] || minY[a] > maxY[b]) continue;
+                if (objectA instanceof Square && objectB instanceof Square) continue; // No square-square response
+                addPair(Math.min(a, b), Math.max(a, b));
+            }
+        }
+    }
+
+    public int getPairCount() {
+        return pairCount;
+    }
+
+    public int getFirst(int pair) {
+        return pairs[2 * pair];
+    }
+
+    public int getSecond(int pair) {
+        return pairs[2 * pair + 1];
+    }
+
+    private void addPair(int a, int b) {
+        if (2 * pairCount + 2 > pairs.length) pairs = Arrays.copyOf(pairs, pairs.length * 2);
+        pairs[2 * pairCount] = a;
+        pairs[2 * pairCount + 1] = b;
+        pairCount++;
+    }
+
+    // Float bits rearranged so that unsigned integer order matches numeric order
+    private static long sortableBits(float value) {
+        int bits = Float.floatToRawIntBits(value);
+        bits ^= (bits >> 31) | 0x80000000;
+        return bits & 0xFFFFFFFFL;
+    }
+
+    private void ensureCapacity(int n) {
+        if (keys.length >= n) return;
+        int capacity = Math.max(n, keys.length * 2);
+        minX = new double[capacity];
+        minY = new double[capacity];
+        maxX = new double[capacity];
+        maxY = new double[capacity];
+        keys = new long[capacity];
+        scratch = new long[capacity];
+    }
+}
@@ -0,0 +1,89 @@
+package collision;
+
+import shapes.Terrain;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The world's terrains, with one AabbTree over the segments of all of them.
+ * A body is tested with a single query however many terrains there are, instead of one query per terrain.
+ * The tree is rebuilt only when a terrain is added or removed, on the next query.
+ */
+public class TerrainIndex {
+    private final List<Terrain> terrains = new ArrayList<>();
+    private final List<Terrain> terrainsView = Collections.unmodifiableList(terrains);
+    private AabbTree tree;                  // Null until the first query after the terrains changed
+    // Item i of the tree is segment itemSegment[i] of terrains.get(itemTerrain[i])
+    private int[] itemTerrain = new int[0];
+    private int[] itemSegment = new int[0];
+
+    public void add(Terrain terrain) {
+        terrains.add(terrain);
+        tree = null;
+    }
+
+    public void remove(Terrain terrain) {
+        terrains.remove(terrain);
+        tree = null;
+    }
+
+    public void clear() {
+        terrains.clear();
+        tree = null;
+    }
+
+    public List<Terrain> getTerrains() {
+        return terrainsView;
+    }
+
+    public boolean isEmpty() {
+        return terrains.isEmpty();
+    }
+
+    /**
+     * Writes the segments whose bounds overlap the box into out and returns how many overlap, with the same
+     * convention as AabbTree.query. Resolve an entry with terrainOf and segmentOf. Not safe to call from several
+     * threads right after the terrains changed, since the first query rebuilds the tree.
+     */
+    public int query(double minX, double minY, double maxX, double maxY, int[] out) {
+        if (tree == null) rebuild();
+        return tree.query(minX, minY, maxX, maxY, out);
+    }
+
+    public Terrain terrainOf(int item) {
+        return terrains.get(itemTerrain[item]);
+    }
+
+    // Index of the segment within its own terrain
+    public int segmentOf(int item) {
+        return itemSegment[item];
+    }
+
+    private void rebuild() {
+        int n = 0;
+        for (int t = 0; t < terrains.size(); t++) n += terrains.get(t).getSegmentCount();
+
+        itemTerrain = new int[n];
+        itemSegment = new int[n];
+        double[] minX = new double[n];
+        double[] minY = new double[n];
+        double[] maxX = new double[n];
+        double[] maxY = new double[n];
+        int item = 0;
+        for (int t = 0; t < terrains.size(); t++) {
+            Terrain terrain = terrains.get(t);
+            for (int s = 0; s < terrain.getSegmentCount(); s++) {
+                itemTerrain[item] = t;
+                itemSegment[item] = s;
+                minX[item] = Math.min(terrain.getX1(s), terrain.getX2(s));
+                minY[item] = Math.min(terrain.getY1(s), terrain.getY2(s));
+                maxX[item] = Math.max(terrain.getX1(s), terrain.getX2(s));
+                maxY[item] = Math.max(terrain.getY1(s), terrain.getY2(s));
+                item++;
+            }
+        }
+        tree = new AabbTree(minX, minY, maxX, maxY);
+    }
+}
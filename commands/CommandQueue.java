@@ -0,0 +1,75 @@
+package commands;
+
+import interfaces.WorldCommand;
+import PhysicsWorld.PhysicsWorld;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Lock-free multi-producer, single-consumer queue of world commands (Vyukov's intrusive MPSC design).
+ * Any thread may submit; producers only do one atomic swap and never wait on each other or on the consumer.
+ * Only the simulation thread may drain.
+ */
+public class CommandQueue {
+    private static final VarHandle NEXT;
+
+    static {
+        try {
+            NEXT = MethodHandles.lookup().findVarHandle(Node.class, "next", Node.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private static final class Node {
+        WorldCommand command;
+        @SuppressWarnings("unused") // Accessed through the NEXT VarHandle
+        Node next;
+
+        Node(WorldCommand command) {
+            this.command = command;
+        }
+    }
+
+    // Most recently submitted node, swapped by producers
+    private final AtomicReference<Node> head;
+    // Last consumed node, only touched by the consumer
+    private Node tail;
+
+    public CommandQueue() {
+        Node stub = new Node(null);
+        head = new AtomicReference<>(stub);
+        tail = stub;
+    }
+
+    public void submit(WorldCommand command) {
+        Node node = new Node(command);
+        Node previous = head.getAndSet(node);
+        // Between the swap and this store the consumer sees the queue as ending at previous
+        NEXT.setRelease(previous, node);
+    }
+
+    /**
+     * Executes every command that is fully linked at the time of the call, in submission order,
+     * and returns how many ran. A command whose producer is still between its two steps is left for the next drain.
+     */
+    public int drain(PhysicsWorld world) {
+        int executed = 0;
+        Node next = (Node) NEXT.getAcquire(tail);
+        while (next != null) {
+            WorldCommand command = next.command;
+            next.command = null;
+            tail = next;
+            command.execute(world);
+            executed++;
+            next = (Node) NEXT.getAcquire(tail);
+        }
+        return executed;
+    }
+
+    public boolean isEmpty() {
+        return NEXT.getAcquire(tail) == null;
+    }
+}
@@ -0,0 +1,55 @@
+package commands;
+
+import enums.BodyType;
+import interfaces.WorldCommand;
+import javafx.scene.paint.Color;
+import shapes.Ball;
+import shapes.Square;
+
+import java.util.function.Consumer;
+
+/**
+ * Factories for the world mutations that may be submitted from any thread.
+ * Bodies are addressed by id since a body created by a spawn command only exists once the command has run.
+ * Callbacks run on the simulation thread.
+ */
+public final class Commands {
+    private Commands() {
+    }
+
+    public static WorldCommand spawnBall(double centerX, double centerY, double radius, Color color, double floorY, double floorX,
+                                         double mass, BodyType bodyType, int material, double velocityX, double velocityY,
+                                         Consumer<Ball> onSpawned) {
+        return world -> {
+            Ball ball = world.spawnBall(centerX, centerY, radius, color, floorY, floorX, mass, bodyType, material);
+            ball.velocityX = velocityX;
+            ball.velocityY = velocityY;
+            if (onSpawned != null) onSpawned.accept(ball);
+        };
+    }
+
+    public static WorldCommand spawnSquare(double centerX, double centerY, double height, double width, Color color, double floorX, double floorY,
+                                           double mass, BodyType bodyType, int material, Consumer<Square> onSpawned) {
+        return world -> {
+            Square square = world.spawnSquare(centerX, centerY, height, width, color, floorX, floorY, mass, bodyType, material);
+            if (onSpawned != null) onSpawned.accept(square);
+        };
+    }
+
+    // Unknown or already removed ids are ignored by the remaining commands
+    public static WorldCommand despawn(int id) {
+        return world -> world.despawn(id);
+    }
+
+    public static WorldCommand applyImpulse(int id, double impulseX, double impulseY) {
+        return world -> world.applyImpulse(id, impulseX, impulseY);
+    }
+
+    public static WorldCommand setVelocity(int id, double velocityX, double velocityY) {
+        return world -> world.setVelocity(id, velocityX, velocityY);
+    }
+
+    public static WorldCommand setCollisionFilter(int id, int category, int mask, int group) {
+        return world -> world.setCollisionFilter(id, category, mask, group);
+    }
+}
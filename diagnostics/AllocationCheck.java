@@ -0,0 +1,171 @@
+package diagnostics;
+
+import PhysicsWorld.PhysicsWorld;
+import enums.BodyType;
+import enums.Constants;
+import forces.BarnesHutGravity;
+import interfaces.SensorListener;
+import javafx.scene.paint.Color;
+import scheduler.StageScheduler;
+import timeline.RewindTimeline;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+
+/**
+ * Checks that a world step allocates nothing once the scene is warmed up.
+ * Each standard scenario is stepped through a StageScheduler the same way EngineLoop does it,
+ * and the bytes allocated over the measured steps must be zero. Stages that run on fork-join workers are counted
+ * too, by summing the allocation counters of every common pool worker. JVM service threads such as the cleaner are not.
+ * Exits with status 1 if any scenario allocates.
+ *
+ * Run with: java diagnostics.AllocationCheck
+ */
+public class AllocationCheck {
+    private static final double DT = 1.0 / 60.0;
+    private static final int WARMUP_STEPS = 5_000;
+    private static final String COMMON_POOL_WORKER = "ForkJoinPool.commonPool-worker-";
+    private static final int LARGE_WARMUP_STEPS = 1_000;  // Enough to warm up loops over thousands of bodies, and much slower per step
+    private static final int MEASURED_STEPS = 1_000;
+
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) {
+        AllocationCheck check = new AllocationCheck();
+        boolean passed = true;
+        passed &= check.run("balls", AllocationCheck::balls);
+        passed &= check.run("balls and squares", AllocationCheck::ballsAndSquares);
+        passed &= check.run("terrain", AllocationCheck::terrain);
+        passed &= check.run("contact listener", AllocationCheck::contactListener);
+        passed &= check.run("barnes-hut gravity", AllocationCheck::barnesHut);
+        passed &= check.run("large scene", AllocationCheck::largeScene, LARGE_WARMUP_STEPS);
+        if (!passed) System.exit(1);
+    }
+
+    private interface Scenario {
+        void build(PhysicsWorld world);
+    }
+
+    private boolean run(String name, Scenario scenario) {
+        return run(name, scenario, WARMUP_STEPS);
+    }
+
+    private boolean run(String name, Scenario scenario, int warmupSteps) {
+        PhysicsWorld world = new PhysicsWorld();
+        StageScheduler scheduler = new StageScheduler();
+        world.addStages(scheduler);
+        scenario.build(world);
+
+        for (int i = 0; i < warmupSteps; i++) step(scheduler);
+
+        long[] idsBefore = threads.getAllThreadIds();
+        long[] bytesBefore = threads.getThreadAllocatedBytes(idsBefore);
+        long ownBefore = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < MEASURED_STEPS; i++) step(scheduler);
+        long ownAllocated = threads.getCurrentThreadAllocatedBytes() - ownBefore;
+        long[] idsAfter = threads.getAllThreadIds();
+        long[] bytesAfter = threads.getThreadAllocatedBytes(idsAfter);
+        ThreadInfo[] infoAfter = threads.getThreadInfo(idsAfter);
+        long allocated = ownAllocated + allocatedByWorkers(idsBefore, bytesBefore, idsAfter, bytesAfter, infoAfter);
+
+        boolean passed = allocated == 0;
+        System.out.printf("%-20s %s  %d bytes over %d steps (%.1f bytes/step)%n",
+                name, passed ? "OK  " : "FAIL", allocated, MEASURED_STEPS, (double) allocated / MEASURED_STEPS);
+        return passed;
+    }
+
+    // Sums what the common pool workers allocated between the two snapshots. Workers started in between count from zero.
+    // The snapshots allocate on this thread, which is why it is measured separately
+    private static long allocatedByWorkers(long[] idsBefore, long[] bytesBefore, long[] idsAfter, long[] bytesAfter, ThreadInfo[] infoAfter) {
+        long allocated = 0;
+        for (int i = 0; i < idsAfter.length; i++) {
+            if (bytesAfter[i] < 0 || infoAfter[i] == null) continue; // Negative or missing once a thread has ended
+            if (!infoAfter[i].getThreadName().startsWith(COMMON_POOL_WORKER)) continue;
+            long start = 0;
+            for (int j = 0; j < idsBefore.length; j++) {
+                if (idsBefore[j] == idsAfter[i]) {
+                    start = Math.max(bytesBefore[j], 0);
+                    break;
+                }
+            }
+            allocated += bytesAfter[i] - start;
+        }
+        return allocated;
+    }
+
+    private static void step(StageScheduler scheduler) {
+        scheduler.step(DT);
+        scheduler.frame();
+    }
+
+    // =================== SCENARIOS ===================
+
+    private static void balls(PhysicsWorld world) {
+        for (int i = 0; i < 200; i++) {
+            double x = 20 + (i % 20) * 28;
+            double y = 20 + (i / 20) * 28;
+            world.spawnBall(x, y, 10, Color.GRAY, Constants.SCENE_HEIGHT, Constants.SCENE_WIDTH, 100, BodyType.Dynamic);
+        }
+        world.spawnBall(300, 250, 30, Color.GRAY, Constants.SCENE_HEIGHT, Constants.SCENE_WIDTH, 0, BodyType.Static);
+    }
+
+    private static void ballsAndSquares(PhysicsWorld world) {
+        balls(world);
+        for (int i = 0; i < 10; i++) {
+            world.spawnSquare(30 + i * 55, 100, 20, 40, Color.GRAY, Constants.SCENE_WIDTH, Constants.SCENE_HEIGHT, 100, BodyType.Dynamic);
+        }
+        world.spawnSquare(450, 400, 20, 120, Color.GRAY, Constants.SCENE_WIDTH, Constants.SCENE_HEIGHT, 0, BodyType.Static);
+    }
+
+    private static void terrain(PhysicsWorld world) {
+        balls(world);
+        double[] points = new double[2 * 201];
+        for (int i = 0; i <= 200; i++) {
+            points[2 * i] = i * Constants.SCENE_WIDTH / 200;
+            points[2 * i + 1] = Constants.SCENE_HEIGHT - 60 + 30 * Math.sin(i * 0.2);
+        }
+        world.spawnTerrain(points, Color.GRAY);
+    }
+
+    private static void contactListener(PhysicsWorld world) {
+        ballsAndSquares(world);
+        double[] total = new double[1];
+        world.addContactListener((phase, bodyA, bodyB, normalX, normalY, impulse) -> total[0] += impulse);
+    }
+
+    private static void barnesHut(PhysicsWorld world) {
+        balls(world);
+        world.addForceField(new BarnesHutGravity(50, 0.5, 5));
+    }
+
+    // Past the parallel thresholds of BarnesHutGravity and integrate, with the rewind timeline and sensors Main runs
+    private static void largeScene(PhysicsWorld world) {
+        int bodies = Constants.PARALLEL_INTEGRATE_THRESHOLD + 1000;
+        world.reserve(bodies);
+        for (int i = 0; i < bodies; i++) {
+            double x = 20 + (i % 80) * 7;
+            double y = 20 + (i / 80) * 7;
+            world.spawnBall(x, y, 2, Color.GRAY, Constants.SCENE_HEIGHT, Constants.SCENE_WIDTH, 10, BodyType.Dynamic);
+        }
+        // Weak enough that the bodies don't collapse into one clump, which would only measure the collision solver
+        world.addForceField(new BarnesHutGravity(1, 0.5, 5));
+        world.setTimeline(new RewindTimeline(world, Constants.REWIND_MEMORY_BYTES, Constants.REWIND_KEYFRAME_INTERVAL));
+
+        world.spawnCircleSensor(150, 250, 60, Color.GRAY);
+        world.spawnBoxSensor(450, 250, 120, 80, Color.GRAY);
+        world.spawnBoxSensor(300, 450, 500, 40, Color.GRAY);
+        int[] events = new int[1];
+        world.addSensorListener(new SensorListener() {
+            @Override
+            public void onEnter(int sensor, int body) {
+                events[0]++;
+            }
+
+            @Override
+            public void onExit(int sensor, int body) {
+                events[0]--;
+            }
+        });
+    }
+}
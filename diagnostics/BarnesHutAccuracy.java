@@ -0,0 +1,89 @@
+package diagnostics;
+
+import PhysicsWorld.PhysicsWorld;
+import enums.BodyType;
+import enums.Constants;
+import forces.BarnesHutGravity;
+import interfaces.PhysicsObject;
+import javafx.scene.paint.Color;
+import shapes.RigidBody;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares BarnesHutGravity against brute-force O(n^2) gravity with the same constant and softening.
+ * Bodies are scattered over the scene with random masses, and the acceleration at a random sample of them is
+ * computed both ways. The error of a sample is relative to the magnitude of its exact acceleration.
+ * Exits with status 1 if the mean error at any theta exceeds its bound.
+ *
+ * Run with: java diagnostics.BarnesHutAccuracy
+ */
+public class BarnesHutAccuracy {
+    private static final int BODIES = 50_000;
+    private static final int SAMPLES = 1_000;
+    private static final double GRAVITATIONAL_CONSTANT = 50;
+    private static final double SOFTENING = 5;
+    private static final double[] THETAS = {0.5, 0.3, 0.1};
+    private static final double[] MAX_MEAN_ERRORS = {0.03, 0.01, 0.001};
+
+    public static void main(String[] args) {
+        PhysicsWorld world = new PhysicsWorld();
+        Random random = new Random(42);
+        world.reserve(BODIES);
+        for (int i = 0; i < BODIES; i++) {
+            double x = random.nextDouble() * Constants.SCENE_WIDTH;
+            double y = random.nextDouble() * Constants.SCENE_HEIGHT;
+            world.spawnBall(x, y, 1, Color.GRAY, Constants.SCENE_HEIGHT, Constants.SCENE_WIDTH, 1 + random.nextDouble() * 99, BodyType.Dynamic);
+        }
+        List<PhysicsObject> objects = world.getObjects();
+
+        int[] samples = new int[SAMPLES];
+        for (int s = 0; s < SAMPLES; s++) samples[s] = random.nextInt(BODIES);
+        double[][] exact = bruteForce(objects, samples);
+
+        boolean passed = true;
+        double[] out = new double[2];
+        for (int t = 0; t < THETAS.length; t++) {
+            BarnesHutGravity gravity = new BarnesHutGravity(GRAVITATIONAL_CONSTANT, THETAS[t], SOFTENING);
+            gravity.prepare(objects);
+
+            double sum = 0, max = 0;
+            for (int s = 0; s < SAMPLES; s++) {
+                RigidBody body = (RigidBody) objects.get(samples[s]);
+                gravity.acceleration(body.getCenterX(), body.getCenterY(), 0, 0, out);
+                double error = Math.hypot(out[0] - exact[s][0], out[1] - exact[s][1]) / Math.hypot(exact[s][0], exact[s][1]);
+                sum += error;
+                max = Math.max(max, error);
+            }
+            double mean = sum / SAMPLES;
+            boolean ok = mean <= MAX_MEAN_ERRORS[t];
+            passed &= ok;
+            System.out.printf("theta %.1f  %s  mean error %.3f%%  max error %.3f%%  (bound %.1f%%)%n",
+                    THETAS[t], ok ? "OK  " : "FAIL", mean * 100, max * 100, MAX_MEAN_ERRORS[t] * 100);
+        }
+        if (!passed) System.exit(1);
+    }
+
+    // Exact softened acceleration at each sampled body, summed over every body with mass
+    private static double[][] bruteForce(List<PhysicsObject> objects, int[] samples) {
+        double softeningSquared = SOFTENING * SOFTENING;
+        double[][] result = new double[samples.length][2];
+        for (int s = 0; s < samples.length; s++) {
+            RigidBody target = (RigidBody) objects.get(samples[s]);
+            double ax = 0, ay = 0;
+            for (int i = 0; i < objects.size(); i++) {
+                RigidBody body = (RigidBody) objects.get(i);
+                double dx = body.getCenterX() - target.getCenterX();
+                double dy = body.getCenterY() - target.getCenterY();
+                double r2 = dx * dx + dy * dy + softeningSquared;
+                double scale = body.getMass() / (r2 * Math.sqrt(r2));
+                ax += dx * scale;
+                ay += dy * scale;
+            }
+            result[s][0] = ax * GRAVITATIONAL_CONSTANT;
+            result[s][1] = ay * GRAVITATIONAL_CONSTANT;
+        }
+        return result;
+    }
+}
@@ -1,31 +1,70 @@
 package engineLoop;
 
-import interfaces.Updatable;
 import javafx.animation.AnimationTimer;
-
-import java.util.ArrayList;
-import java.util.List;
+import scheduler.StageScheduler;
 
 public class EngineLoop extends AnimationTimer {
     private long lastUpdate = 0;
-    private final List<Updatable> updatableList = new ArrayList<>();
+    private final StageScheduler scheduler = new StageScheduler();
+    private double fixedStep = 0;   // Simulation step in seconds, 0 steps once per frame with the frame time
+    private double accumulator = 0; // Frame time not yet simulated when running with a fixed step
+    private static final int MAX_STEPS_PER_FRAME = 8;
+    private static final double DEFAULT_SINGLE_STEP = 1.0 / 60.0;
+    private boolean paused = false;
 
     public EngineLoop() {
     }
 
-    public void addUpdatable(Updatable updatable) {
-        updatableList.add(updatable);
+    // Step stages run every simulation step, frame stages once per pulse after the steps, even while paused
+    public StageScheduler getScheduler() {
+        return scheduler;
+    }
+
+    // A larger fixed step means fewer steps per simulated second, check it against the integrator's stability limit
+    public void setFixedStep(double fixedStep) {
+        this.fixedStep = fixedStep;
+        accumulator = 0;
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+
+    public void setPaused(boolean paused) {
+        this.paused = paused;
+        accumulator = 0;
+    }
+
+    // Advances the simulation by one step right away, meant for single-stepping while paused
+    public void stepOnce() {
+        step(fixedStep > 0 ? fixedStep : DEFAULT_SINGLE_STEP);
     }
 
     @Override
     public void handle(long now) {
-        if (lastUpdate > 0) {
+        if (!paused && lastUpdate > 0) {
             double dt = (now - lastUpdate) / 1_000_000_000.0;
-            for (Updatable u : updatableList) {
-                u.update(dt);
+            if (fixedStep <= 0) {
+                step(dt);
+            } else {
+                accumulator += dt;
+                int steps = 0;
+                while (accumulator >= fixedStep && steps < MAX_STEPS_PER_FRAME) {
+                    step(fixedStep);
+                    accumulator -= fixedStep;
+                    steps++;
+                }
+                // Drop time we couldn't catch up on instead of spiralling further behind
+                if (steps == MAX_STEPS_PER_FRAME) accumulator = 0;
             }
         }
         lastUpdate = now;
+        // E.g. the render sync, which pushes whatever the frame's steps (or a rewind while paused) moved to the scene graph
+        scheduler.frame();
+    }
+
+    private void step(double dt) {
+        scheduler.step(dt);
     }
 
 
@@ -10,4 +10,11 @@ public class Constants {
     public static final double SCENE_HEIGHT = 500;
     public static final double SPRING_STIFFNESS = 2000; // k (N/m)
     public static final double DAMPING = 400;            // c (N·s/m)
+    public static final long REWIND_MEMORY_BYTES = 32L * 1024 * 1024; // Memory cap of the rewind timeline
+    public static final int REWIND_KEYFRAME_INTERVAL = 30;            // Steps between full snapshots
+    public static final int REORDER_INTERVAL = 60;                    // Steps between Z-order re-sorts of the bodies
+    public static final double RENDER_SYNC_THRESHOLD = 0.25;          // Pixels a body must drift before its node is moved
+    public static final double BROADPHASE_MARGIN = 2.0;               // Pixels added around bounds when looking for candidate pairs
+    public static final int PARALLEL_INTEGRATE_THRESHOLD = 4096;      // Fewer bodies are integrated on one thread
+    public static final int CONTACT_EVENT_CAPACITY = 4096;            // Default number of contact events buffered per step
 }
@@ -0,0 +1,7 @@
+package enums;
+
+public enum ContactPhase {
+    Begin,   // Bodies started touching this step
+    Persist, // Bodies were touching last step and still are
+    End,     // Bodies were touching last step and have separated
+}
@@ -0,0 +1,14 @@
+package enums;
+
+// Shared state a scheduler stage reads or writes, used to decide which stages may run at the same time
+public enum Resource {
+    Commands,       // Queued world mutations and the rewind timeline
+    BodyList,       // Which bodies exist and their order
+    BodyState,      // Positions and velocities
+    ForceField,     // Prepared force fields
+    Pairs,          // Broadphase candidate pairs
+    Contacts,       // Contacts found by the solver
+    SensorOverlaps, // Bodies found inside sensors
+    Listeners,      // User callbacks
+    SceneGraph      // JavaFX nodes
+}
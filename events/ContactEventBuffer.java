@@ -0,0 +1,113 @@
+package events;
+
+import enums.ContactPhase;
+import interfaces.ContactListener;
+
+import java.util.List;
+
+/**
+ * Fixed-size ring buffer of contact events.
+ * The solver pushes events while it runs and listeners receive them in one batch once the step is done,
+ * so the solver itself never calls into listener code.
+ * When the buffer is full, Persist events give way: a new Persist event is dropped, and a new Begin or End event
+ * takes the place of the oldest buffered Persist event. Only when the buffer holds nothing but Begin and End events
+ * is a new one of those dropped as well. Every lost event is counted as dropped.
+ */
+public class ContactEventBuffer {
+    private static final ContactPhase[] PHASES = ContactPhase.values();
+
+    private final int capacity;
+    private final byte[] phase;
+    private final int[] bodyA;
+    private final int[] bodyB;
+    private final double[] normalX;
+    private final double[] normalY;
+    private final double[] impulse;
+
+    private int head = 0;  // Index of the oldest event
+    private int size = 0;
+    private int persistCount = 0;
+    private int noPersistBefore = 0;  // Offset from head up to which no Persist event is buffered
+    private long dropped = 0;
+
+    public ContactEventBuffer(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be positive");
+        this.capacity = capacity;
+        phase = new byte[capacity];
+        bodyA = new int[capacity];
+        bodyB = new int[capacity];
+        normalX = new double[capacity];
+        normalY = new double[capacity];
+        impulse = new double[capacity];
+    }
+
+    public void push(ContactPhase contactPhase, int a, int b, double nx, double ny, double j) {
+        if (size == capacity) {
+            dropped++;
+            if (contactPhase == ContactPhase.Persist || persistCount == 0) return;
+            removeOldestPersist();
+        }
+        int slot = (head + size) % capacity;
+        size++;
+        if (contactPhase == ContactPhase.Persist) persistCount++;
+        phase[slot] = (byte) contactPhase.ordinal();
+        bodyA[slot] = a;
+        bodyB[slot] = b;
+        normalX[slot] = nx;
+        normalY[slot] = ny;
+        impulse[slot] = j;
+    }
+
+    // Hands every buffered event to each listener, oldest first, then empties the buffer
+    public void drain(List<ContactListener> listeners) {
+        for (int i = 0; i < size; i++) {
+            int slot = (head + i) % capacity;
+            for (int l = 0; l < listeners.size(); l++) {
+                listeners.get(l).onContact(PHASES[phase[slot]], bodyA[slot], bodyB[slot], normalX[slot], normalY[slot], impulse[slot]);
+            }
+        }
+        clear();
+    }
+
+    public void clear() {
+        head = 0;
+        size = 0;
+        persistCount = 0;
+        noPersistBefore = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    // Number of events lost because the buffer was full
+    public long getDropped() {
+        return dropped;
+    }
+
+    // Removes the oldest Persist event, moving the older Begin and End events up one slot so the order is kept
+    private void removeOldestPersist() {
+        int offset = noPersistBefore;
+        while (PHASES[phase[(head + offset) % capacity]] != ContactPhase.Persist) offset++;
+        for (int i = offset; i > 0; i--) {
+            copy((head + i - 1) % capacity, (head + i) % capacity);
+        }
+        head = (head + 1) % capacity;
+        size--;
+        persistCount--;
+        noPersistBefore = offset;
+    }
+
+    private void copy(int from, int to) {
+        phase[to] = phase[from];
+        bodyA[to] = bodyA[from];
+        bodyB[to] = bodyB[from];
+        normalX[to] = normalX[from];
+        normalY[to] = normalY[from];
+        impulse[to] = impulse[from];
+    }
+}
@@ -0,0 +1,137 @@
+package events;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash set of body pairs that are in contact, keyed by (lower id, higher id).
+ * Each entry also stores the contact normal and the accumulated normal impulse for the step.
+ * Storage only grows when the set fills up, so clearing and refilling it every step does not allocate.
+ */
+public class ContactPairSet {
+    private static final long EMPTY = -1L;
+
+    private long[] keys;
+    private double[] normalX;
+    private double[] normalY;
+    private double[] impulse;
+    private int mask;
+    private int size = 0;
+
+    public ContactPairSet(int initialCapacity) {
+        int capacity = Integer.highestOneBit(Math.max(16, initialCapacity - 1) << 1);
+        allocate(capacity);
+    }
+
+    public static long key(int a, int b) {
+        return ((long) a << 32) | (b & 0xFFFFFFFFL);
+    }
+
+    public static int firstId(long key) {
+        return (int) (key >>> 32);
+    }
+
+    public static int secondId(long key) {
+        return (int) key;
+    }
+
+    // Returns the slot holding the key, or -1 if it is not in the set
+    public int indexOf(long key) {
+        int slot = hash(key) & mask;
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) return slot;
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    // Returns the slot for the key, inserting a zeroed entry if it was absent
+    public int insert(long key) {
+        if ((size + 1) * 4 > keys.length * 3) grow();
+        int slot = hash(key) & mask;
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) return slot;
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        normalX[slot] = 0;
+        normalY[slot] = 0;
+        impulse[slot] = 0;
+        size++;
+        return slot;
+    }
+
+    public void clear() {
+        if (size == 0) return;
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Slots are iterated from 0 to capacity() - 1, skipping the ones that are not occupied
+    public int capacity() {
+        return keys.length;
+    }
+
+    public boolean isOccupied(int slot) {
+        return keys[slot] != EMPTY;
+    }
+
+    public long keyAt(int slot) {
+        return keys[slot];
+    }
+
+    public double normalX(int slot) {
+        return normalX[slot];
+    }
+
+    public double normalY(int slot) {
+        return normalY[slot];
+    }
+
+    public double impulse(int slot) {
+        return impulse[slot];
+    }
+
+    public void setNormal(int slot, double nx, double ny) {
+        normalX[slot] = nx;
+        normalY[slot] = ny;
+    }
+
+    public void addImpulse(int slot, double j) {
+        impulse[slot] += j;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        normalX = new double[capacity];
+        normalY = new double[capacity];
+        impulse = new double[capacity];
+        mask = capacity - 1;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        double[] oldNormalX = normalX;
+        double[] oldNormalY = normalY;
+        double[] oldImpulse = impulse;
+
+        allocate(oldKeys.length * 2);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == EMPTY) continue;
+            int slot = insert(oldKeys[i]);
+            normalX[slot] = oldNormalX[i];
+            normalY[slot] = oldNormalY[i];
+            impulse[slot] = oldImpulse[i];
+        }
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
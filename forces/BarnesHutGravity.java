@@ -0,0 +1,310 @@
+package forces;
+
+import collision.MortonOrder;
+import interfaces.ForceField;
+import interfaces.PhysicsObject;
+import shapes.RigidBody;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Mutual gravitation between all bodies with mass, approximated with a Barnes-Hut quadtree.
+ * Every step the bodies are sorted by Morton code, which makes every quadtree cell a contiguous range of the
+ * sorted arrays. The 16 cells two levels below the root are built as independent subtrees on the fork-join pool,
+ * each writing to its own slice of the node arrays. A query then treats any cell that looks smaller than theta
+ * from the query point as a single mass at its center of mass, so a lookup costs O(log n) instead of O(n).
+ * Softening keeps close encounters finite and makes a body's pull on itself zero.
+ */
+public class BarnesHutGravity implements ForceField {
+    private static final int LEAF_SIZE = 8;
+    private static final int TOP_LEVELS = 2;                  // Levels built sequentially above the parallel subtrees
+    private static final int SUBTREES = 1 << (2 * TOP_LEVELS);
+    private static final int PARALLEL_THRESHOLD = 4096;       // Fewer bodies are cheaper to build on one thread
+
+    private final double gravitationalConstant;
+    private final double thetaSquared;
+    private final double softeningSquared;
+
+    // Bodies with mass, sorted by Morton code
+    private int count = 0;
+    private int[] codes = new int[0];
+    private double[] bodyX = new double[0];
+    private double[] bodyY = new double[0];
+    private double[] bodyMass = new double[0];
+
+    // Sort buffers, indexed by position in the objects list before sorting
+    private long[] keys = new long[0];
+    private long[] keyScratch = new long[0];
+    private double[] rawX = new double[0];
+    private double[] rawY = new double[0];
+    private double[] rawMass = new double[0];
+    private final int[] counts = new int[256];
+
+    // Quadtree nodes. A subtree over sorted range [s, e) uses node slots [2s, 2e), the top levels sit after 2 * count
+    private double[] nodeMass = new double[0];
+    private double[] nodeX = new double[0];         // Center of mass
+    private double[] nodeY = new double[0];
+    private double[] nodeSize = new double[0];      // Cell width
+    private int[] nodeChild = new int[0];           // 4 per node, -1 for an empty quadrant
+    private int[] nodeLeafStart = new int[0];       // -1 for inner nodes
+    private int[] nodeLeafEnd = new int[0];
+    private int root = -1;
+
+    private double originX, originY, extent;        // Square covering all bodies
+
+    private final SubtreeTask[] tasks = new SubtreeTask[SUBTREES];
+    private final ThreadLocal<int[]> stacks = ThreadLocal.withInitial(() -> new int[128]);
+
+    /**
+     * @param theta opening angle, smaller is more accurate. Must stay below 0.7 so a cell is always opened
+     *              when the query point lies inside it
+     */
+    public BarnesHutGravity(double gravitationalConstant, double theta, double softening) {
+        if (theta <= 0 || theta >= 0.7) throw new IllegalArgumentException("theta must be in (0, 0.7)");
+        this.gravitationalConstant = gravitationalConstant;
+        this.thetaSquared = theta * theta;
+        this.softeningSquared = softening * softening;
+        for (int i = 0; i < SUBTREES; i++) tasks[i] = new SubtreeTask();
+    }
+
+    @Override
+    public void prepare(List<PhysicsObject> objects) {
+        collectBodies(objects);
+        root = -1;
+        if (count == 0) return;
+
+        // Split the sorted range into the 16 cells below the top levels
+        int shift = 32 - 2 * TOP_LEVELS;
+        int start = 0;
+        for (int cell = 0; cell < SUBTREES; cell++) {
+            int end = start;
+            while (end < count && (codes[end] >>> shift) == cell) end++;
+            tasks[cell].set(start, end);
+            start = end;
+        }
+
+        if (count >= PARALLEL_THRESHOLD) {
+            for (int i = 1; i < SUBTREES; i++) {
+                tasks[i].reinitialize();
+                tasks[i].fork();
+            }
+            tasks[0].compute();
+            // Like PhysicsWorld.integrate: a blocking join would allocate a wait node, on a worker as much as on the FX thread
+            for (int i = SUBTREES - 1; i > 0; i--) {
+                if (tasks[i].tryUnfork()) {
+                    tasks[i].compute();
+                } else {
+                    while (!tasks[i].isDone()) Thread.yield();
+                    tasks[i].join();
+                }
+            }
+        } else {
+            for (int i = 0; i < SUBTREES; i++) tasks[i].compute();
+        }
+
+        // Level 1 cells take four subtrees each, the root takes the level 1 cells
+        int top = 2 * count;
+        root = top++;
+        for (int quadrant = 0; quadrant < 4; quadrant++) {
+            int node = top++;
+            for (int k = 0; k < 4; k++) {
+                nodeChild[4 * node + k] = tasks[quadrant * 4 + k].result;
+            }
+            finishInner(node, 1);
+            nodeChild[4 * root + quadrant] = nodeMass[node] > 0 ? node : -1;
+        }
+        finishInner(root, 0);
+    }
+
+    @Override
+    public void acceleration(double x, double y, double velocityX, double velocityY, double[] out) {
+        double ax = 0, ay = 0;
+        if (root >= 0) {
+            int[] stack = stacks.get();
+            int top = 0;
+            stack[top++] = root;
+            while (top > 0) {
+                int node = stack[--top];
+                if (nodeLeafStart[node] >= 0) {
+                    for (int i = nodeLeafStart[node]; i < nodeLeafEnd[node]; i++) {
+                        double dx = bodyX[i] - x;
+                        double dy = bodyY[i] - y;
+                        double r2 = dx * dx + dy * dy + softeningSquared;
+                        double scale = bodyMass[i] / (r2 * Math.sqrt(r2));
+                        ax += dx * scale;
+                        ay += dy * scale;
+                    }
+                    continue;
+                }
+
+                double dx = nodeX[node] - x;
+                double dy = nodeY[node] - y;
+                double d2 = dx * dx + dy * dy;
+                if (nodeSize[node] * nodeSize[node] < thetaSquared * d2) {
+                    // Far enough away to count as one mass
+                    double r2 = d2 + softeningSquared;
+                    double scale = nodeMass[node] / (r2 * Math.sqrt(r2));
+                    ax += dx * scale;
+                    ay += dy * scale;
+                } else {
+                    if (top + 4 > stack.length) {
+                        stack = Arrays.copyOf(stack, stack.length * 2);
+                        stacks.set(stack);
+                    }
+                    for (int k = 0; k < 4; k++) {
+                        int child = nodeChild[4 * node + k];
+                        if (child >= 0) stack[top++] = child;
+                    }
+                }
+            }
+        }
+        out[0] = ax * gravitationalConstant;
+        out[1] = ay * gravitationalConstant;
+    }
+
+    // Copies positions and masses of every body with mass into arrays sorted by Morton code
+    private void collectBodies(List<PhysicsObject> objects) {
+        int n = 0;
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        ensureCapacity(objects.size());
+        for (int i = 0; i < objects.size(); i++) {
+            if (objects.get(i) instanceof RigidBody body && body.getMass() > 0) {
+                rawX[n] = body.getCenterX();
+                rawY[n] = body.getCenterY();
+                rawMass[n] = body.getMass();
+                minX = Math.min(minX, rawX[n]);
+                minY = Math.min(minY, rawY[n]);
+                maxX = Math.max(maxX, rawX[n]);
+                maxY = Math.max(maxY, rawY[n]);
+                n++;
+            }
+        }
+        count = n;
+        if (n == 0) return;
+
+        originX = minX;
+        originY = minY;
+        extent = Math.max(Math.max(maxX - minX, maxY - minY), 1e-9);
+        double scale = MortonOrder.AXIS_CELLS / extent;
+        for (int i = 0; i < n; i++) {
+            long code = MortonOrder.encode((int) ((rawX[i] - originX) * scale), (int) ((rawY[i] - originY) * scale));
+            keys[i] = (code << 32) | i;
+        }
+        MortonOrder.sortByHighHalf(keys, keyScratch, counts, n);
+
+        for (int i = 0; i < n; i++) {
+            int source = (int) keys[i];
+            codes[i] = (int) (keys[i] >>> 32);
+            bodyX[i] = rawX[source];
+            bodyY[i] = rawY[source];
+            bodyMass[i] = rawMass[source];
+        }
+    }
+
+    // Sums mass and center of mass from the children of an inner node
+    private void finishInner(int node, int level) {
+        double mass = 0, x = 0, y = 0;
+        for (int k = 0; k < 4; k++) {
+            int child = nodeChild[4 * node + k];
+            if (child < 0) continue;
+            mass += nodeMass[child];
+            x += nodeX[child] * nodeMass[child];
+            y += nodeY[child] * nodeMass[child];
+        }
+        nodeMass[node] = mass;
+        nodeX[node] = mass > 0 ? x / mass : 0;
+        nodeY[node] = mass > 0 ? y / mass : 0;
+        nodeSize[node] = extent / (1 << level);
+        nodeLeafStart[node] = -1;
+        nodeLeafEnd[node] = -1;
+    }
+
+    private void ensureCapacity(int n) {
+        if (rawX.length >= n) return;
+        int capacity = Math.max(n, rawX.length * 2);
+        codes = new int[capacity];
+        bodyX = new double[capacity];
+        bodyY = new double[capacity];
+        bodyMass = new double[capacity];
+        keys = new long[capacity];
+        keyScratch = new long[capacity];
+        rawX = new double[capacity];
+        rawY = new double[capacity];
+        rawMass = new double[capacity];
+
+        int nodes = 2 * capacity + 1 + 4;
+        nodeMass = new double[nodes];
+        nodeX = new double[nodes];
+        nodeY = new double[nodes];
+        nodeSize = new double[nodes];
+        nodeChild = new int[4 * nodes];
+        nodeLeafStart = new int[nodes];
+        nodeLeafEnd = new int[nodes];
+    }
+
+    // Builds the quadtree below one of the 16 top cells into its own slice of the node arrays
+    private final class SubtreeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private int start, end;
+        private int cursor;
+        int result;
+
+        void set(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            cursor = 2 * start;
+            result = start < end ? build(start, end, TOP_LEVELS) : -1;
+        }
+
+        private int build(int from, int to, int level) {
+            if (to - from <= LEAF_SIZE || level >= MortonOrder.BITS_PER_AXIS) {
+                return leaf(from, to, level);
+            }
+
+            // Bodies in [from, to) share the code prefix above this level, so the quadrant digit is sorted
+            int shift = 30 - 2 * level;
+            int firstQuadrant = (codes[from] >>> shift) & 3;
+            int lastQuadrant = (codes[to - 1] >>> shift) & 3;
+            if (firstQuadrant == lastQuadrant) {
+                // Everything falls in one quadrant, skip the level instead of making a single-child node
+                return build(from, to, level + 1);
+            }
+
+            int node = cursor++;
+            int childStart = from;
+            for (int k = 0; k < 4; k++) {
+                int childEnd = childStart;
+                while (childEnd < to && ((codes[childEnd] >>> shift) & 3) == k) childEnd++;
+                nodeChild[4 * node + k] = childEnd > childStart ? build(childStart, childEnd, level + 1) : -1;
+                childStart = childEnd;
+            }
+            finishInner(node, level);
+            return node;
+        }
+
+        private int leaf(int from, int to, int level) {
+            int node = cursor++;
+            double mass = 0, x = 0, y = 0;
+            for (int i = from; i < to; i++) {
+                mass += bodyMass[i];
+                x += bodyX[i] * bodyMass[i];
+                y += bodyY[i] * bodyMass[i];
+            }
+            nodeMass[node] = mass;
+            nodeX[node] = x / mass;
+            nodeY[node] = y / mass;
+            nodeSize[node] = extent / (1 << level);
+            nodeLeafStart[node] = from;
+            nodeLeafEnd[node] = to;
+            for (int k = 0; k < 4; k++) nodeChild[4 * node + k] = -1;
+            return node;
+        }
+    }
+}
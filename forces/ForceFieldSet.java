@@ -0,0 +1,44 @@
+package forces;
+
+import interfaces.ForceField;
+import interfaces.PhysicsObject;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Sum of several force fields, used as the single field bodies integrate against
+public class ForceFieldSet implements ForceField {
+    private final List<ForceField> fields = new ArrayList<>();
+
+    public void add(ForceField field) {
+        fields.add(field);
+    }
+
+    public void remove(ForceField field) {
+        fields.remove(field);
+    }
+
+    public List<ForceField> getFields() {
+        return fields;
+    }
+
+    @Override
+    public void prepare(List<PhysicsObject> objects) {
+        for (int i = 0; i < fields.size(); i++) {
+            fields.get(i).prepare(objects);
+        }
+    }
+
+    @Override
+    public void acceleration(double x, double y, double velocityX, double velocityY, double[] out) {
+        double ax = 0, ay = 0;
+        for (int i = 0; i < fields.size(); i++) {
+            // Each field overwrites out, so the sum is kept in locals and no shared scratch is needed across threads
+            fields.get(i).acceleration(x, y, velocityX, velocityY, out);
+            ax += out[0];
+            ay += out[1];
+        }
+        out[0] = ax;
+        out[1] = ay;
+    }
+}
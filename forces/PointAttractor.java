@@ -0,0 +1,38 @@
+package forces;
+
+import interfaces.ForceField;
+
+/**
+ * Inverse-square pull towards a fixed point. A negative strength makes it a repulsor.
+ * Softening keeps the acceleration finite near the center, and nothing beyond range is affected.
+ */
+public class PointAttractor implements ForceField {
+    private final double x, y;
+    private final double strength;       // Acceleration at distance 1 (px^3/s^2)
+    private final double softeningSquared;
+    private final double rangeSquared;
+
+    public PointAttractor(double x, double y, double strength, double softening, double range) {
+        this.x = x;
+        this.y = y;
+        this.strength = strength;
+        this.softeningSquared = softening * softening;
+        this.rangeSquared = range * range;
+    }
+
+    @Override
+    public void acceleration(double bodyX, double bodyY, double velocityX, double velocityY, double[] out) {
+        double dx = x - bodyX;
+        double dy = y - bodyY;
+        double distanceSquared = dx * dx + dy * dy;
+        if (distanceSquared > rangeSquared) {
+            out[0] = 0;
+            out[1] = 0;
+            return;
+        }
+        double softened = distanceSquared + softeningSquared;
+        double scale = strength / (softened * Math.sqrt(softened));
+        out[0] = dx * scale;
+        out[1] = dy * scale;
+    }
+}
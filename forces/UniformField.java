@@ -0,0 +1,31 @@
+package forces;
+
+import enums.Constants;
+import interfaces.ForceField;
+
+// Same acceleration everywhere, e.g. gravity
+public class UniformField implements ForceField {
+    public static final UniformField GRAVITY = new UniformField(0, Constants.GRAVITY);
+
+    private final double accelerationX;
+    private final double accelerationY;
+
+    public UniformField(double accelerationX, double accelerationY) {
+        this.accelerationX = accelerationX;
+        this.accelerationY = accelerationY;
+    }
+
+    public double getAccelerationX() {
+        return accelerationX;
+    }
+
+    public double getAccelerationY() {
+        return accelerationY;
+    }
+
+    @Override
+    public void acceleration(double x, double y, double velocityX, double velocityY, double[] out) {
+        out[0] = accelerationX;
+        out[1] = accelerationY;
+    }
+}
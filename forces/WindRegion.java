@@ -0,0 +1,34 @@
+package forces;
+
+import interfaces.ForceField;
+
+/**
+ * Rectangular region of moving air. Bodies inside are pulled towards the wind velocity at a rate set by drag (1/s),
+ * so a body already moving with the wind feels nothing. Outside the region the field is zero.
+ */
+public class WindRegion implements ForceField {
+    private final double minX, minY, maxX, maxY;
+    private final double windX, windY;
+    private final double drag;
+
+    public WindRegion(double minX, double minY, double maxX, double maxY, double windX, double windY, double drag) {
+        this.minX = minX;
+        this.minY = minY;
+        this.maxX = maxX;
+        this.maxY = maxY;
+        this.windX = windX;
+        this.windY = windY;
+        this.drag = drag;
+    }
+
+    @Override
+    public void acceleration(double x, double y, double velocityX, double velocityY, double[] out) {
+        if (x < minX || x > maxX || y < minY || y > maxY) {
+            out[0] = 0;
+            out[1] = 0;
+            return;
+        }
+        out[0] = drag * (windX - velocityX);
+        out[1] = drag * (windY - velocityY);
+    }
+}
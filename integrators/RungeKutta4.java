@@ -0,0 +1,49 @@
+package integrators;
+
+import interfaces.AccelerationField;
+import interfaces.Integrator;
+
+/**
+ * Classic fourth order Runge-Kutta.
+ * Four field evaluations per step, meant for force-field scenes (attractors, orbits) where the
+ * acceleration changes quickly with position and per-step accuracy matters more than cost.
+ * Stable for omega * dt < 2.8, but not symplectic: orbits slowly lose energy over long runs.
+ */
+public class RungeKutta4 implements Integrator {
+    @Override
+    public void step(double[] state, double[] acceleration, double dt, AccelerationField field) {
+        double x = state[0], y = state[1], vx = state[2], vy = state[3];
+        double halfDt = dt * 0.5;
+
+        // k1
+        field.acceleration(x, y, vx, vy, acceleration);
+        double k1x = vx, k1y = vy;
+        double k1vx = acceleration[0], k1vy = acceleration[1];
+
+        // k2
+        double k2x = vx + k1vx * halfDt, k2y = vy + k1vy * halfDt;
+        field.acceleration(x + k1x * halfDt, y + k1y * halfDt, k2x, k2y, acceleration);
+        double k2vx = acceleration[0], k2vy = acceleration[1];
+
+        // k3
+        double k3x = vx + k2vx * halfDt, k3y = vy + k2vy * halfDt;
+        field.acceleration(x + k2x * halfDt, y + k2y * halfDt, k3x, k3y, acceleration);
+        double k3vx = acceleration[0], k3vy = acceleration[1];
+
+        // k4
+        double k4x = vx + k3vx * dt, k4y = vy + k3vy * dt;
+        field.acceleration(x + k3x * dt, y + k3y * dt, k4x, k4y, acceleration);
+        double k4vx = acceleration[0], k4vy = acceleration[1];
+
+        double sixth = dt / 6.0;
+        state[0] = x + sixth * (k1x + 2 * k2x + 2 * k3x + k4x);
+        state[1] = y + sixth * (k1y + 2 * k2y + 2 * k3y + k4y);
+        state[2] = vx + sixth * (k1vx + 2 * k2vx + 2 * k3vx + k4vx);
+        state[3] = vy + sixth * (k1vy + 2 * k2vy + 2 * k3vy + k4vy);
+    }
+
+    @Override
+    public double stabilityLimit() {
+        return 2.8;
+    }
+}
@@ -0,0 +1,26 @@
+package integrators;
+
+import interfaces.AccelerationField;
+import interfaces.Integrator;
+
+/**
+ * Semi-implicit (symplectic) Euler: update the velocity first, then move with the new velocity.
+ * First order, one field evaluation per step. Energy oscillates around the true value instead of drifting,
+ * so bouncing and resting scenes don't slowly gain or lose energy.
+ * Stable for omega * dt < 2.
+ */
+public class SymplecticEuler implements Integrator {
+    @Override
+    public void step(double[] state, double[] acceleration, double dt, AccelerationField field) {
+        field.acceleration(state[0], state[1], state[2], state[3], acceleration);
+        state[2] += acceleration[0] * dt;
+        state[3] += acceleration[1] * dt;
+        state[0] += state[2] * dt;
+        state[1] += state[3] * dt;
+    }
+
+    @Override
+    public double stabilityLimit() {
+        return 2.0;
+    }
+}
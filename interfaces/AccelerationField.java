@@ -0,0 +1,6 @@
+package interfaces;
+
+public interface AccelerationField {
+    // Writes the acceleration at the given state into out[0] (x) and out[1] (y)
+    void acceleration(double x, double y, double velocityX, double velocityY, double[] out);
+}
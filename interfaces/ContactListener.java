@@ -0,0 +1,8 @@
+package interfaces;
+
+import enums.ContactPhase;
+
+public interface ContactListener {
+    // Normal points from bodyA towards bodyB, bodyA always has the lower id
+    void onContact(ContactPhase phase, int bodyA, int bodyB, double normalX, double normalY, double impulse);
+}
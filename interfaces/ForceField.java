@@ -0,0 +1,9 @@
+package interfaces;
+
+import java.util.List;
+
+public interface ForceField extends AccelerationField {
+    // Called once per step before any body is integrated, for fields that depend on where the bodies are
+    default void prepare(List<PhysicsObject> objects) {
+    }
+}
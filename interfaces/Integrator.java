@@ -0,0 +1,20 @@
+package interfaces;
+
+public interface Integrator {
+    /**
+     * Advances state = {x, y, velocityX, velocityY} by dt in place. acceleration is the caller's scratch for
+     * field evaluations, at least two long, so one integrator can step bodies on several threads at once.
+     */
+    void step(double[] state, double[] acceleration, double dt, AccelerationField field);
+
+    /**
+     * Largest omega * dt for which the method stays stable on an undamped oscillator,
+     * where omega is the highest angular frequency in the scene (sqrt(k / m) for a spring).
+     */
+    double stabilityLimit();
+
+    // Largest stable timestep for a scene whose stiffest mode has the given angular frequency
+    default double maxStableStep(double omega) {
+        return stabilityLimit() / omega;
+    }
+}
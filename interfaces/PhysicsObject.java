@@ -4,4 +4,15 @@ import javafx.scene.shape.Shape;
 
 public interface PhysicsObject {
     Shape getShape();
+
+    int getId();
+
+    // Collision filter bits, see CollisionFilter
+    int getCollisionCategory();
+
+    int getCollisionMask();
+
+    int getCollisionGroup();
+
+    void setCollisionFilter(int category, int mask, int group);
 }
@@ -0,0 +1,9 @@
+package interfaces;
+
+public interface SensorListener {
+    // A body started overlapping the sensor this step
+    void onEnter(int sensor, int body);
+
+    // A body that overlapped the sensor last step no longer does, or was despawned
+    void onExit(int sensor, int body);
+}
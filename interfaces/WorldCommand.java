@@ -0,0 +1,8 @@
+package interfaces;
+
+import PhysicsWorld.PhysicsWorld;
+
+public interface WorldCommand {
+    // Runs on the simulation thread while the world drains its command queue
+    void execute(PhysicsWorld world);
+}
@@ -0,0 +1,16 @@
+package interfaces;
+
+import java.util.List;
+
+public interface WorldListener {
+    void onSpawn(PhysicsObject object);
+
+    void onDespawn(PhysicsObject object);
+
+    // Everything in the world was removed at once. Override to drop them in bulk instead of one at a time
+    default void onClear(List<PhysicsObject> removed) {
+        for (int i = 0; i < removed.size(); i++) {
+            onDespawn(removed.get(i));
+        }
+    }
+}
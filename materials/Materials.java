@@ -0,0 +1,109 @@
+package materials;
+
+import enums.Constants;
+
+import java.util.Arrays;
+
+/**
+ * Shared material registry.
+ * Bodies only keep a small index into this table instead of their own copies of the coefficients.
+ * Coefficients for every pair of materials are combined once when a material is registered,
+ * so a contact only needs a single array lookup.
+ */
+public final class Materials {
+    public static final int MAX_MATERIALS = 256; // Indices must fit in a byte
+
+    // Everything registered so far. register replaces it with a new snapshot, so a reader that loads it once
+    // sees a count and tables that belong together, even while another thread registers
+    private static volatile Table table = new Table(0, new double[0], new double[0], new double[0], new double[0]);
+
+    public static final int DEFAULT = register(Constants.RESTITUTION, Constants.FRICTION, Constants.FRICTION, 1.0);
+    public static final int BOX = register(0.1, Constants.FRICTION, Constants.FRICTION, 1.0);
+    // Scene bounds and terrain. No bounce of its own, so the other body's restitution decides
+    public static final int WALL = register(0.0, Constants.FRICTION, Constants.FRICTION, 0.0);
+
+    private Materials() {
+    }
+
+    // Returns the index of the new material
+    public static synchronized int register(double restitution, double staticFriction, double dynamicFriction, double density) {
+        Table current = table;
+        int count = current.count;
+        if (count == MAX_MATERIALS) throw new IllegalStateException("Too many materials, the limit is " + MAX_MATERIALS);
+        if (dynamicFriction > staticFriction) throw new IllegalArgumentException("Dynamic friction can't exceed static friction");
+
+        double[] newRestitution = Arrays.copyOf(current.restitution, count + 1);
+        double[] newStaticFriction = Arrays.copyOf(current.staticFriction, count + 1);
+        double[] newDynamicFriction = Arrays.copyOf(current.dynamicFriction, count + 1);
+        double[] newDensity = Arrays.copyOf(current.density, count + 1);
+        newRestitution[count] = restitution;
+        newStaticFriction[count] = staticFriction;
+        newDynamicFriction[count] = dynamicFriction;
+        newDensity[count] = density;
+
+        table = new Table(count + 1, newRestitution, newStaticFriction, newDynamicFriction, newDensity);
+        return count;
+    }
+
+    public static int count() {
+        return table.count;
+    }
+
+    public static double restitution(int material) {
+        return table.restitution[material];
+    }
+
+    public static double staticFriction(int material) {
+        return table.staticFriction[material];
+    }
+
+    public static double dynamicFriction(int material) {
+        return table.dynamicFriction[material];
+    }
+
+    public static double density(int material) {
+        return table.density[material];
+    }
+
+    public static double restitution(int a, int b) {
+        Table t = table;
+        return t.pairRestitution[a * t.count + b];
+    }
+
+    public static double staticFriction(int a, int b) {
+        Table t = table;
+        return t.pairStaticFriction[a * t.count + b];
+    }
+
+    public static double dynamicFriction(int a, int b) {
+        Table t = table;
+        return t.pairDynamicFriction[a * t.count + b];
+    }
+
+    // Immutable once constructed. Pair tables are indexed by a * count + b
+    private static final class Table {
+        final int count;
+        final double[] restitution, staticFriction, dynamicFriction, density;
+        final double[] pairRestitution, pairStaticFriction, pairDynamicFriction;
+
+        // Restitution takes the bouncier of the two, friction the geometric mean
+        Table(int count, double[] restitution, double[] staticFriction, double[] dynamicFriction, double[] density) {
+            this.count = count;
+            this.restitution = restitution;
+            this.staticFriction = staticFriction;
+            this.dynamicFriction = dynamicFriction;
+            this.density = density;
+            pairRestitution = new double[count * count];
+            pairStaticFriction = new double[count * count];
+            pairDynamicFriction = new double[count * count];
+            for (int a = 0; a < count; a++) {
+                for (int b = 0; b < count; b++) {
+                    int i = a * count + b;
+                    pairRestitution[i] = Math.max(restitution[a], restitution[b]);
+                    pairStaticFriction[i] = Math.sqrt(staticFriction[a] * staticFriction[b]);
+                    pairDynamicFriction[i] = Math.sqrt(dynamicFriction[a] * dynamicFriction[b]);
+                }
+            }
+        }
+    }
+}
@@ -1,19 +1,29 @@
 package physicsUI;
 
 import PhysicsWorld.PhysicsWorld;
+import commands.Commands;
 import engineLoop.EngineLoop;
 import enums.BodyType;
 import enums.Constants;
+import interfaces.PhysicsObject;
+import interfaces.WorldListener;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.control.*;
 import javafx.scene.layout.*;
 import javafx.scene.paint.Color;
 import javafx.scene.shape.Line;
+import javafx.scene.shape.Polyline;
 import javafx.scene.shape.Rectangle;
-import shapes.Ball;
-import shapes.Square;
-
+import materials.Materials;
+import javafx.stage.FileChooser;
+import prediction.PredictionScene;
+import prediction.TrajectoryPredictor;
+import scenes.SceneFile;
+import timeline.RewindTimeline;
+
+import java.io.File;
+import java.io.IOException;
 import java.util.*;
 
 
@@ -51,6 +61,8 @@ public class PhysicsUI {
 
     private final Line dragLine = new Line(); // Line showing launch direction for balls
     private final Rectangle dragPreviewRect = new Rectangle(); // Preview box for rectangles
+    private final Polyline trajectoryLine = new Polyline(); // Predicted path of the ball being launched
+    private final TrajectoryPredictor trajectoryPredictor = TrajectoryPredictor.start(this::showTrajectory);
 
 // =================== PHYSICS PARAMETERS ===================
 
@@ -61,6 +73,13 @@ public class PhysicsUI {
     private final TextField massField = new TextField();
     private ComboBox<BodyType> bodyTypeSelector = new ComboBox<>();;
 
+// =================== REWIND CONTROLS ===================
+
+    private final Button pauseBtn = new Button("Pause");
+    private final Button stepBtn = new Button("Step");
+    private final Slider rewindSlider = new Slider(0, 0, 0); // Scrubs through the world's rewind timeline while paused
+    private boolean updatingRewindSlider = false; // Set while the slider is moved from code rather than by the user
+
     public PhysicsUI(double sceneHeight, double sceneWidth, PhysicsWorld physicsWorld, EngineLoop engineLoop, Pane pane) {
         this.sceneWidth = sceneWidth;
         this.sceneHeight = sceneHeight;
@@ -69,10 +88,13 @@ public class PhysicsUI {
         this.simulationPane = pane;
 
 
+        setUpWorldListener();
         setUpCursorAndLaunch();
         setUpUIBox();
         setUpButtons();
         setUpInputs();
+        setUpTimelineControls();
+        setUpSceneMenu();
         setUpActions();
 
     }
@@ -86,6 +108,30 @@ public class PhysicsUI {
 
     }
 
+    // Bodies can be spawned by commands from any source, so nodes are added and removed when the world reports it
+    void setUpWorldListener() {
+        physicsWorld.addWorldListener(new WorldListener() {
+            @Override
+            public void onSpawn(PhysicsObject object) {
+                simulationPane.getChildren().add(object.getShape());
+            }
+
+            @Override
+            public void onDespawn(PhysicsObject object) {
+                simulationPane.getChildren().remove(object.getShape());
+            }
+
+            @Override
+            public void onClear(List<PhysicsObject> removed) {
+                Set<Object> gone = Collections.newSetFromMap(new IdentityHashMap<>());
+                for (PhysicsObject object : removed) {
+                    gone.add(object.getShape());
+                }
+                simulationPane.getChildren().removeIf(gone::contains);
+            }
+        });
+    }
+
     void setUpCursorAndLaunch() {
 
         simulationPane.setOnMousePressed(event -> {
@@ -103,6 +149,11 @@ public class PhysicsUI {
                 dragLine.setStroke(Color.RED);
 
                 dragLine.setStrokeWidth(2);
+                trajectoryLine.getPoints().clear();
+                trajectoryLine.setStroke(Color.RED);
+                trajectoryLine.setStrokeWidth(1.5);
+                trajectoryLine.getStrokeDashArray().setAll(6.0, 6.0);
+                trajectoryLine.setMouseTransparent(true);
                 if (!simulationPane.getChildren().contains(dragLine))
                     simulationPane.getChildren().add(dragLine);
             }
@@ -134,6 +185,7 @@ public class PhysicsUI {
             if (isBall) {
                 dragLine.setEndX(event.getX());
                 dragLine.setEndY(event.getY());
+                if (isDragging) predictTrajectory(event.getX(), event.getY());
             }
 
             if (isRectangle) {
@@ -145,7 +197,8 @@ public class PhysicsUI {
         });
 
         simulationPane.setOnMouseReleased(event -> {
-            simulationPane.getChildren().removeAll(dragLine, dragPreviewRect);
+            trajectoryPredictor.cancel();
+            simulationPane.getChildren().removeAll(dragLine, dragPreviewRect, trajectoryLine);
 
             double radius = 0, mass = 0;
             try {
@@ -226,6 +279,87 @@ public class PhysicsUI {
         uiBox.getChildren().addAll(radiusLabel, radiusField, massLabel, massField, bodyTypeSelector);
     }
 
+    void setUpTimelineControls() {
+        stepBtn.setDisable(true);
+        rewindSlider.setDisable(true);
+        rewindSlider.setPrefWidth(100);
+
+        RewindTimeline timeline = physicsWorld.getTimeline();
+
+        pauseBtn.setOnAction(e -> {
+            boolean paused = !engineLoop.isPaused();
+            engineLoop.setPaused(paused);
+            pauseBtn.setText(paused ? "Play" : "Pause");
+            stepBtn.setDisable(!paused);
+            rewindSlider.setDisable(!paused || timeline == null);
+            if (paused && timeline != null) {
+                timeline.capture();
+                refreshRewindSlider();
+            }
+        });
+
+        stepBtn.setOnAction(e -> {
+            engineLoop.stepOnce();
+            if (timeline != null) {
+                timeline.capture();
+                refreshRewindSlider();
+            }
+        });
+
+        rewindSlider.valueProperty().addListener((observable, oldValue, newValue) -> {
+            if (updatingRewindSlider || timeline == null || !engineLoop.isPaused() || timeline.isEmpty()) return;
+            timeline.seek(Math.round(newValue.doubleValue()));
+        });
+
+        uiBox.getChildren().addAll(pauseBtn, stepBtn, rewindSlider);
+    }
+
+    // Saves the world to a scene file or replaces it with one
+    void setUpSceneMenu() {
+        MenuItem saveItem = new MenuItem("Save...");
+        MenuItem loadItem = new MenuItem("Load...");
+        MenuButton sceneMenu = new MenuButton("Scene", null, saveItem, loadItem);
+
+        FileChooser chooser = new FileChooser();
+        chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Jysics scene", "*." + SceneFile.EXTENSION));
+
+        saveItem.setOnAction(e -> {
+            File file = chooser.showSaveDialog(simulationPane.getScene().getWindow());
+            if (file == null) return;
+            try {
+                SceneFile.save(physicsWorld, file.toPath());
+            } catch (IOException ex) {
+                showAlert("Could not save the scene: " + ex.getMessage());
+            }
+        });
+
+        loadItem.setOnAction(e -> {
+            File file = chooser.showOpenDialog(simulationPane.getScene().getWindow());
+            if (file == null) return;
+            try {
+                SceneFile.load(physicsWorld, file.toPath());
+            } catch (IOException ex) {
+                showAlert("Could not load the scene: " + ex.getMessage());
+            }
+            RewindTimeline timeline = physicsWorld.getTimeline();
+            if (engineLoop.isPaused() && timeline != null) {
+                timeline.capture();
+                refreshRewindSlider();
+            }
+        });
+
+        uiBox.getChildren().add(sceneMenu);
+    }
+
+    void refreshRewindSlider() {
+        RewindTimeline timeline = physicsWorld.getTimeline();
+        updatingRewindSlider = true;
+        rewindSlider.setMin(timeline.getOldestFrame());
+        rewindSlider.setMax(timeline.getNewestFrame());
+        rewindSlider.setValue(timeline.getSeekedFrame() >= 0 ? timeline.getSeekedFrame() : timeline.getNewestFrame());
+        updatingRewindSlider = false;
+    }
+
     void setUpActions() {
         Button ballBtn = buttons.get("ball-btn");
         Button rectBtn = buttons.get("rect-btn");
@@ -344,15 +478,43 @@ public class PhysicsUI {
         double spawnX = Math.max(radius, Math.min(x, sceneWidth - radius));
         double spawnY = Math.max(radius, Math.min(y, sceneHeight - radius));
 
-        Ball ball = physicsWorld.spawnBall(spawnX, spawnY, radius, color, sceneHeight, sceneWidth, mass, bodyTypeSelector.getValue());
+        physicsWorld.submit(Commands.spawnBall(spawnX, spawnY, radius, color, sceneHeight, sceneWidth, mass, bodyTypeSelector.getValue(),
+                Materials.DEFAULT, applyVelocity ? vx : 0, applyVelocity ? vy : 0, null));
+    }
 
-        if (applyVelocity) {
-            ball.velocityX = vx;
-            ball.velocityY = vy;
+    // Fast-forwards the ball that releasing here would launch through a snapshot of the scene
+    private void predictTrajectory(double dragEndX, double dragEndY) {
+        double radius, mass;
+        try {
+            radius = Double.parseDouble(radiusField.getText());
+            mass = Double.parseDouble(massField.getText());
+        } catch (NumberFormatException e) {
+            radius = mass = 0; // Reported on release
         }
+        if (bodyTypeSelector.getValue() != BodyType.Dynamic || mass <= 0) {
+            // Nothing would move, so there is no path to show
+            trajectoryPredictor.cancel();
+            simulationPane.getChildren().remove(trajectoryLine);
+            return;
+        }
+
+        // Same position and velocity the release would spawn with
+        double spawnX = Math.max(radius, Math.min(dragStartX, sceneWidth - radius));
+        double spawnY = Math.max(radius, Math.min(dragStartY, sceneHeight - radius));
+        double vx = (dragStartX - dragEndX) * DEFAULT_VELOCITY_SCALE;
+        double vy = (dragStartY - dragEndY) * DEFAULT_VELOCITY_SCALE;
 
-        engineLoop.addUpdatable(ball);
-        simulationPane.getChildren().add(ball.getShape());
+        PredictionScene scene = PredictionScene.capture(physicsWorld, sceneWidth, sceneHeight);
+        trajectoryPredictor.predict(scene, spawnX, spawnY, vx, vy, radius, mass, Materials.DEFAULT);
+    }
+
+    private void showTrajectory(double[] path) {
+        List<Double> points = new ArrayList<>(path.length);
+        for (double point : path) points.add(point);
+        trajectoryLine.getPoints().setAll(points);
+        if (!simulationPane.getChildren().contains(trajectoryLine)) {
+            simulationPane.getChildren().add(trajectoryLine);
+        }
     }
 
     private void spawnRectangle(double mass, double dragEndX, double dragEndY) {
@@ -365,9 +527,8 @@ public class PhysicsUI {
 
         Color color = generateMuteColor();
 
-        Square rect = physicsWorld.spawnSquare(centerX, centerY, height, width, color,sceneWidth, sceneHeight, mass, bodyTypeSelector.getValue());
-        engineLoop.addUpdatable(rect);
-        simulationPane.getChildren().add(rect.getShape());
+        physicsWorld.submit(Commands.spawnSquare(centerX, centerY, height, width, color, sceneWidth, sceneHeight, mass, bodyTypeSelector.getValue(),
+                Materials.BOX, null));
     }
 
     void showAlert(String message) {
@@ -0,0 +1,117 @@
+package prediction;
+
+import PhysicsWorld.PhysicsWorld;
+import collision.CollisionFilter;
+import forces.UniformField;
+import interfaces.ForceField;
+import interfaces.Integrator;
+import interfaces.PhysicsObject;
+import shapes.Ball;
+import shapes.Square;
+import shapes.Terrain;
+
+import java.util.List;
+
+/**
+ * Frozen copy of the parts of a world a launch prediction collides with, in plain arrays.
+ * Capturing only copies a handful of doubles per body, so it is cheap to do on the FX thread for every drag event,
+ * and the copy can then be read from a background thread while the real world keeps running.
+ * Terrain is immutable and shared rather than copied. Bodies whose collision filter rejects a newly spawned ball are left out.
+ */
+public class PredictionScene {
+    final int ballCount;
+    final double[] ballX, ballY, ballRadius;
+    final int[] ballMaterial;
+
+    final int squareCount;
+    final double[] squareMinX, squareMinY, squareMaxX, squareMaxY;
+    final int[] squareMaterial;
+
+    final Terrain[] terrains;
+
+    final Integrator integrator;       // The world's, so the probe moves like a real ball
+    final double gravityX, gravityY;   // Sum of the world's uniform fields, other fields are not predicted
+    final double width, height;        // Scene bounds
+
+    private PredictionScene(int balls, int squares, Terrain[] terrains, Integrator integrator, double gravityX, double gravityY, double width, double height) {
+        ballX = new double[balls];
+        ballY = new double[balls];
+        ballRadius = new double[balls];
+        ballMaterial = new int[balls];
+        squareMinX = new double[squares];
+        squareMinY = new double[squares];
+        squareMaxX = new double[squares];
+        squareMaxY = new double[squares];
+        squareMaterial = new int[squares];
+        this.ballCount = balls;
+        this.squareCount = squares;
+        this.terrains = terrains;
+        this.integrator = integrator;
+        this.gravityX = gravityX;
+        this.gravityY = gravityY;
+        this.width = width;
+        this.height = height;
+    }
+
+    // Must be called on the thread that steps the world
+    public static PredictionScene capture(PhysicsWorld world, double width, double height) {
+        List<PhysicsObject> objects = world.getObjects();
+        int balls = 0, squares = 0;
+        for (int i = 0; i < objects.size(); i++) {
+            PhysicsObject object = objects.get(i);
+            if (!touchesNewBody(object)) continue;
+            if (object instanceof Ball) balls++;
+            else if (object instanceof Square) squares++;
+        }
+
+        double gravityX = 0, gravityY = 0;
+        List<ForceField> fields = world.getForceFields();
+        for (int i = 0; i < fields.size(); i++) {
+            if (fields.get(i) instanceof UniformField uniform) {
+                gravityX += uniform.getAccelerationX();
+                gravityY += uniform.getAccelerationY();
+            }
+        }
+
+        List<Terrain> worldTerrains = world.getTerrains();
+        int terrainCount = 0;
+        for (int i = 0; i < worldTerrains.size(); i++) {
+            if (touchesNewBody(worldTerrains.get(i))) terrainCount++;
+        }
+        Terrain[] terrains = new Terrain[terrainCount];
+        terrainCount = 0;
+        for (int i = 0; i < worldTerrains.size(); i++) {
+            if (touchesNewBody(worldTerrains.get(i))) terrains[terrainCount++] = worldTerrains.get(i);
+        }
+        PredictionScene scene = new PredictionScene(balls, squares, terrains, world.getIntegrator(), gravityX, gravityY, width, height);
+
+        int b = 0, s = 0;
+        for (int i = 0; i < objects.size(); i++) {
+            PhysicsObject object = objects.get(i);
+            if (!touchesNewBody(object)) continue;
+            if (object instanceof Ball ball) {
+                scene.ballX[b] = ball.getCenterX();
+                scene.ballY[b] = ball.getCenterY();
+                scene.ballRadius[b] = ball.getRadius();
+                scene.ballMaterial[b] = ball.getMaterial();
+                b++;
+            } else if (object instanceof Square square) {
+                double halfWidth = square.getWidth() / 2.0;
+                double halfHeight = square.getHeight() / 2.0;
+                scene.squareMinX[s] = square.getCenterX() - halfWidth;
+                scene.squareMinY[s] = square.getCenterY() - halfHeight;
+                scene.squareMaxX[s] = square.getCenterX() + halfWidth;
+                scene.squareMaxY[s] = square.getCenterY() + halfHeight;
+                scene.squareMaterial[s] = square.getMaterial();
+                s++;
+            }
+        }
+        return scene;
+    }
+
+    // The launched ball spawns with the default filter
+    private static boolean touchesNewBody(PhysicsObject object) {
+        return CollisionFilter.canCollide(CollisionFilter.DEFAULT_CATEGORY, CollisionFilter.ALL, CollisionFilter.NO_GROUP,
+                object.getCollisionCategory(), object.getCollisionMask(), object.getCollisionGroup());
+    }
+}
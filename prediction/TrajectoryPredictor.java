@@ -0,0 +1,184 @@
+package prediction;
+
+import collision.ContactSolver;
+import collision.SceneBounds;
+import interfaces.AccelerationField;
+import javafx.application.Platform;
+import shapes.Terrain;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Predicts the path of a ball about to be launched by fast-forwarding it through a frozen copy of the scene
+ * on a background thread. Only the newest request matters: a request that arrives while another is being
+ * simulated replaces the waiting one, and results that are out of date by the time they finish are dropped.
+ * The probe is stepped like a Ball: the world's integrator, the floor, walls and rolling friction of SceneBounds,
+ * and contacts with other balls, rectangles and terrain through ContactSolver. Everything else stays where it was captured.
+ */
+public class TrajectoryPredictor {
+    private static final double STEP = 1.0 / 60.0;      // The engine's step at 60 frames per second
+    private static final int MAX_STEPS = 120;           // Two second horizon
+
+    private final Consumer<double[]> onPath;            // Receives x0, y0, x1, y1, ... on the FX thread
+    private final AtomicReference<Request> pending = new AtomicReference<>();
+    private final AtomicLong generation = new AtomicLong();
+    private Thread worker;                               // Set by start before the predictor is handed out
+
+    // Scratch for the worker thread only
+    private int[] segmentHits = new int[64];
+    private final double[] probe = new double[4];       // The launched ball, in ContactSolver's state layout
+    private final double[] frozen = new double[4];      // The body it hits, which never moves
+    private final double[] normal = new double[2];
+    private final double[] acceleration = new double[2];
+    private final ProbeField field = new ProbeField();
+
+    private TrajectoryPredictor(Consumer<double[]> onPath) {
+        this.onPath = onPath;
+    }
+
+    // Creates a predictor and starts its daemon worker thread
+    public static TrajectoryPredictor start(Consumer<double[]> onPath) {
+        TrajectoryPredictor predictor = new TrajectoryPredictor(onPath);
+        predictor.worker = new Thread(predictor::run, "trajectory-predictor");
+        predictor.worker.setDaemon(true);
+        predictor.worker.start();
+        return predictor;
+    }
+
+    /**
+     * Queues a prediction for a ball launched from (x, y), replacing any prediction that has not started yet.
+     */
+    public void predict(PredictionScene scene, double x, double y, double velocityX, double velocityY, double radius, double mass, int material) {
+        pending.set(new Request(scene, x, y, velocityX, velocityY, radius, mass, material, generation.incrementAndGet()));
+        LockSupport.unpark(worker);
+    }
+
+    // Drops the waiting request and any result still on its way
+    public void cancel() {
+        generation.incrementAndGet();
+        pending.set(null);
+    }
+
+    private void run() {
+        while (true) {
+            Request request = pending.getAndSet(null);
+            if (request == null) {
+                LockSupport.park(this);
+                continue;
+            }
+            double[] path;
+            try {
+                path = simulate(request);
+            } catch (RuntimeException e) {
+                // A broken scene costs this one preview, not the worker
+                System.err.println("Trajectory prediction failed: " + e);
+                e.printStackTrace();
+                continue;
+            }
+            if (request.generation != generation.get()) continue;
+            Platform.runLater(() -> {
+                if (request.generation == generation.get()) onPath.accept(path);
+            });
+        }
+    }
+
+    private double[] simulate(Request request) {
+        PredictionScene scene = request.scene;
+        double radius = request.radius;
+        double mass = request.mass;
+        int material = request.material;
+        probe[ContactSolver.X] = request.x;
+        probe[ContactSolver.Y] = request.y;
+        probe[ContactSolver.VELOCITY_X] = request.velocityX;
+        probe[ContactSolver.VELOCITY_Y] = request.velocityY;
+        field.accelerationX = scene.gravityX;
+        field.accelerationY = scene.gravityY;
+
+        double[] path = new double[2 * (MAX_STEPS + 2)];
+        int points = 0;
+        path[points++] = request.x;
+        path[points++] = request.y;
+
+        for (int step = 1; step <= MAX_STEPS; step++) {
+            // Collisions first, then integration and walls, in the same order as a world step
+            for (int i = 0; i < scene.ballCount; i++) {
+                // The other ball is frozen, so it acts like a static one
+                frozen[ContactSolver.X] = scene.ballX[i];
+                frozen[ContactSolver.Y] = scene.ballY[i];
+                frozen[ContactSolver.VELOCITY_X] = 0;
+                frozen[ContactSolver.VELOCITY_Y] = 0;
+                ContactSolver.resolveBalls(probe, radius, mass, false, material,
+                        frozen, scene.ballRadius[i], 0, true, scene.ballMaterial[i]);
+            }
+
+            for (int i = 0; i < scene.squareCount; i++) {
+                ContactSolver.resolveBallBox(probe, radius, mass, material, scene.squareMinX[i], scene.squareMinY[i],
+                        scene.squareMaxX[i], scene.squareMaxY[i], scene.squareMaterial[i], normal);
+            }
+
+            for (Terrain terrain : scene.terrains) {
+                double x = probe[ContactSolver.X];
+                double y = probe[ContactSolver.Y];
+                int hits = terrain.querySegments(x - radius, y - radius, x + radius, y + radius, segmentHits);
+                if (hits > segmentHits.length) {
+                    segmentHits = new int[Integer.highestOneBit(hits) << 1];
+                    hits = terrain.querySegments(x - radius, y - radius, x + radius, y + radius, segmentHits);
+                }
+                for (int h = 0; h < hits; h++) {
+                    int segment = segmentHits[h];
+                    ContactSolver.resolveBallSegment(probe, radius, mass, material, terrain.getX1(segment), terrain.getY1(segment),
+                            terrain.getX2(segment), terrain.getY2(segment), terrain.getMaterial(), normal);
+                }
+            }
+
+            // The floor, walls and rolling friction exactly as a Ball steps, under the world's integrator
+            field.supported = SceneBounds.settle(probe, radius, scene.height);
+            scene.integrator.step(probe, acceleration, STEP, field);
+            SceneBounds.resolve(probe, STEP, radius, mass, material, scene.width, scene.height);
+
+            path[points++] = probe[ContactSolver.X];
+            path[points++] = probe[ContactSolver.Y];
+
+            // Once the ball lies still on the floor the rest of the path is a single point
+            if (field.supported && probe[ContactSolver.VELOCITY_X] == 0 && probe[ContactSolver.VELOCITY_Y] == 0) break;
+        }
+
+        return Arrays.copyOf(path, points);
+    }
+
+    // The scene's uniform gravity, cancelled downwards while the probe rests on the floor like RigidBody does
+    private static final class ProbeField implements AccelerationField {
+        double accelerationX, accelerationY;
+        boolean supported;
+
+        @Override
+        public void acceleration(double x, double y, double velocityX, double velocityY, double[] out) {
+            out[0] = accelerationX;
+            out[1] = supported && accelerationY > 0 ? 0 : accelerationY;
+        }
+    }
+
+    private static final class Request {
+        final PredictionScene scene;
+        final double x, y, velocityX, velocityY;
+        final double radius, mass;
+        final int material;
+        final long generation;
+
+        Request(PredictionScene scene, double x, double y, double velocityX, double velocityY, double radius, double mass, int material, long generation) {
+            this.scene = scene;
+            this.x = x;
+            this.y = y;
+            this.velocityX = velocityX;
+            this.velocityY = velocityY;
+            this.radius = radius;
+            this.mass = mass;
+            this.material = material;
+            this.generation = generation;
+        }
+    }
+}
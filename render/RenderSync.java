@@ -0,0 +1,47 @@
+package render;
+
+import shapes.RigidBody;
+
+import java.util.Arrays;
+
+/**
+ * Bodies whose position drifted past the render threshold since they were last drawn.
+ * Physics only writes to the bodies' own fields, and a body queues itself here the first time it moves far enough.
+ * sync pushes the queued bodies to their nodes once per frame, so resting bodies never touch the scene graph.
+ */
+public class RenderSync {
+    private RigidBody[] dirty = new RigidBody[64];
+    private int count = 0;
+    private int lastSyncCount = 0;
+
+    // Called by a body when it becomes dirty, at most once until the next sync. Bodies may be integrated on worker threads
+    public synchronized void add(RigidBody body) {
+        if (count == dirty.length) dirty = Arrays.copyOf(dirty, count * 2);
+        dirty[count++] = body;
+    }
+
+    // Must run on the FX thread, after the frame's simulation steps
+    public void sync() {
+        for (int i = 0; i < count; i++) {
+            dirty[i].syncShape();
+            dirty[i] = null;
+        }
+        lastSyncCount = count;
+        count = 0;
+    }
+
+    // Forgets the queued bodies without drawing them, e.g. after they were all despawned
+    public void clear() {
+        Arrays.fill(dirty, 0, count, null);
+        count = 0;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    // Number of nodes the last sync moved
+    public int getLastSyncCount() {
+        return lastSyncCount;
+    }
+}
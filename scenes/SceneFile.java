@@ -0,0 +1,405 @@
+package scenes;
+
+import PhysicsWorld.PhysicsWorld;
+import enums.BodyType;
+import forces.UniformField;
+import integrators.PositionVerlet;
+import integrators.RungeKutta4;
+import integrators.SymplecticEuler;
+import interfaces.ForceField;
+import interfaces.Integrator;
+import interfaces.PhysicsObject;
+import javafx.scene.paint.Color;
+import javafx.scene.paint.Paint;
+import materials.Materials;
+import shapes.Ball;
+import shapes.RigidBody;
+import shapes.Sensor;
+import shapes.Square;
+import shapes.Terrain;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact binary scene snapshots, so large test scenes can be stored once and reloaded in milliseconds.
+ * Layout, big-endian:
+ * <pre>
+ * header    "JYSC", int version
+ * settings  byte integrator, int n, n x (double accelerationX, double accelerationY) uniform fields
+ * materials int n, n x (double restitution, staticFriction, dynamicFriction, density)
+ * balls     int n, n x fixed-size record (position, radius, velocity, mass, bounds, type, material, color, filter)
+ * squares   int n, n x fixed-size record (position, height, width, velocity, mass, bounds, type, material, color, filter)
+ * terrains  int n, n x (material, color, filter, int points, points x (double x, double y))
+ * sensors   int n, n x (byte circle, double x, double y, double radius or width, double height, color, filter)  since version 2
+ * </pre>
+ * Saving streams the world through a DataOutputStream. Loading maps the file and reads the records straight
+ * from the mapped buffer, with no intermediate stream or copies.
+ * Materials are matched against the registry by their coefficients, registering the ones it doesn't have yet.
+ * Force fields other than uniform ones are not stored, and integrators other than the built-in ones are saved as SymplecticEuler.
+ */
+public final class SceneFile {
+    public static final String EXTENSION = "jysc";
+
+    private static final int MAGIC = 0x4A595343; // "JYSC"
+    private static final int VERSION = 2;
+
+    private static final byte SYMPLECTIC_EULER = 0;
+    private static final byte POSITION_VERLET = 1;
+    private static final byte RUNGE_KUTTA_4 = 2;
+
+    // Record sizes. Every ball and square record ends with the common body fields written by writeBody
+    private static final int BODY_BYTES = 5 * Double.BYTES + 2 + 4 * Integer.BYTES;
+    private static final int BALL_BYTES = 3 * Double.BYTES + BODY_BYTES;
+    private static final int SQUARE_BYTES = 4 * Double.BYTES + BODY_BYTES;
+    private static final int TERRAIN_BYTES = 1 + 5 * Integer.BYTES;
+    private static final int SENSOR_BYTES = 1 + 4 * Double.BYTES + 4 * Integer.BYTES;
+
+    private SceneFile() {
+    }
+
+    // Must be called on the thread that steps the world
+    public static void save(PhysicsWorld world, Path path) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+
+            // =================== SETTINGS ===================
+            out.writeByte(integratorTag(world.getIntegrator()));
+            List<ForceField> fields = world.getForceFields();
+            List<UniformField> uniform = new ArrayList<>();
+            for (ForceField field : fields) {
+                if (field instanceof UniformField u) uniform.add(u);
+            }
+            out.writeInt(uniform.size());
+            for (UniformField field : uniform) {
+                out.writeDouble(field.getAccelerationX());
+                out.writeDouble(field.getAccelerationY());
+            }
+
+            // =================== MATERIALS ===================
+            int materials = Materials.count();
+            out.writeInt(materials);
+            for (int m = 0; m < materials; m++) {
+                out.writeDouble(Materials.restitution(m));
+                out.writeDouble(Materials.staticFriction(m));
+                out.writeDouble(Materials.dynamicFriction(m));
+                out.writeDouble(Materials.density(m));
+            }
+
+            // =================== BODIES ===================
+            List<PhysicsObject> objects = world.getObjects();
+            int balls = 0, squares = 0;
+            for (int i = 0; i < objects.size(); i++) {
+                if (objects.get(i) instanceof Ball) balls++;
+                else if (objects.get(i) instanceof Square) squares++;
+            }
+
+            out.writeInt(balls);
+            for (int i = 0; i < objects.size(); i++) {
+                if (!(objects.get(i) instanceof Ball ball)) continue;
+                out.writeDouble(ball.getCenterX());
+                out.writeDouble(ball.getCenterY());
+                out.writeDouble(ball.getRadius());
+                writeBody(out, ball, ball.getShape().getFill());
+            }
+
+            out.writeInt(squares);
+            for (int i = 0; i < objects.size(); i++) {
+                if (!(objects.get(i) instanceof Square square)) continue;
+                out.writeDouble(square.getCenterX());
+                out.writeDouble(square.getCenterY());
+                out.writeDouble(square.getHeight());
+                out.writeDouble(square.getWidth());
+                writeBody(out, square, square.getShape().getFill());
+            }
+
+            List<Terrain> terrains = world.getTerrains();
+            out.writeInt(terrains.size());
+            for (Terrain terrain : terrains) {
+                out.writeByte(terrain.getMaterial());
+                out.writeInt(argb(terrain.getShape().getStroke()));
+                writeFilter(out, terrain);
+                int segments = terrain.getSegmentCount();
+                out.writeInt(segments + 1);
+                out.writeDouble(terrain.getX1(0));
+                out.writeDouble(terrain.getY1(0));
+                for (int s = 0; s < segments; s++) {
+                    out.writeDouble(terrain.getX2(s));
+                    out.writeDouble(terrain.getY2(s));
+                }
+            }
+
+            List<Sensor> sensors = world.getSensors();
+            out.writeInt(sensors.size());
+            for (Sensor sensor : sensors) {
+                out.writeBoolean(sensor.isCircle());
+                out.writeDouble(sensor.getCenterX());
+                out.writeDouble(sensor.getCenterY());
+                out.writeDouble(sensor.isCircle() ? sensor.getRadius() : 2 * sensor.getHalfWidth());
+                out.writeDouble(2 * sensor.getHalfHeight());
+                out.writeInt(argb(sensor.getShape().getStroke()));
+                writeFilter(out, sensor);
+            }
+        }
+    }
+
+    /**
+     * Replaces everything in the world with the scene stored at path. The world's rewind history is cleared.
+     * The whole file is parsed and validated before anything changes, so a corrupt or truncated file leaves
+     * the world and the material registry untouched.
+     * Must be called on the thread that steps the world.
+     */
+    public static void load(PhysicsWorld world, Path path) throws IOException {
+        MappedByteBuffer in;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        try {
+            if (in.remaining() < 8 || in.getInt() != MAGIC) throw new IOException(path + " is not a Jysics scene");
+            int version = in.getInt();
+            if (version < 1 || version > VERSION) throw new IOException("Unsupported scene version " + version);
+
+            Integrator integrator = integratorFor(in.get());
+            int fieldCount = count(in, 16);
+            double[] fields = new double[2 * fieldCount];
+            for (int i = 0; i < fields.length; i++) fields[i] = in.getDouble();
+
+            int materialCount = count(in, 32);
+            double[] coefficients = new double[4 * materialCount];
+            for (int i = 0; i < coefficients.length; i++) coefficients[i] = in.getDouble();
+            checkMaterials(coefficients);
+
+            // Validation pass over the body sections, with placeholder materials and no world to spawn into
+            int sections = in.position();
+            readSections(in, version, new int[materialCount], null);
+
+            // =================== APPLY ===================
+            int[] materials = new int[materialCount];
+            for (int m = 0; m < materialCount; m++) {
+                materials[m] = findOrRegister(coefficients[4 * m], coefficients[4 * m + 1], coefficients[4 * m + 2], coefficients[4 * m + 3]);
+            }
+
+            world.clear();
+            if (world.getTimeline() != null) world.getTimeline().clear();
+            world.setIntegrator(integrator);
+            for (ForceField field : new ArrayList<>(world.getForceFields())) {
+                if (field instanceof UniformField) world.removeForceField(field);
+            }
+            for (int i = 0; i < fieldCount; i++) {
+                double ax = fields[2 * i];
+                double ay = fields[2 * i + 1];
+                boolean gravity = ax == UniformField.GRAVITY.getAccelerationX() && ay == UniformField.GRAVITY.getAccelerationY();
+                world.addForceField(gravity ? UniformField.GRAVITY : new UniformField(ax, ay));
+            }
+
+            in.position(sections);
+            readSections(in, version, materials, world);
+        } catch (BufferUnderflowException e) {
+            throw new IOException(path + " is truncated", e);
+        } catch (IllegalArgumentException e) {
+            throw new IOException(path + " is corrupt: " + e.getMessage(), e);
+        }
+    }
+
+    // Reads the ball, square, terrain and sensor sections. With a null world it only checks them
+    private static void readSections(MappedByteBuffer in, int version, int[] materials, PhysicsWorld world) throws IOException {
+        int balls = count(in, BALL_BYTES);
+        if (world != null) world.reserve(balls);
+        for (int i = 0; i < balls; i++) {
+            double centerX = in.getDouble();
+            double centerY = in.getDouble();
+            double radius = in.getDouble();
+            double velocityX = in.getDouble();
+            double velocityY = in.getDouble();
+            double mass = in.getDouble();
+            double floorX = in.getDouble();
+            double floorY = in.getDouble();
+            BodyType bodyType = bodyType(in.get());
+            int material = material(materials, in.get());
+            int argb = in.getInt();
+            int category = in.getInt();
+            int mask = in.getInt();
+            int group = in.getInt();
+            if (world == null) continue;
+            Ball ball = world.spawnBall(centerX, centerY, radius, color(argb), floorY, floorX, mass, bodyType, material);
+            ball.velocityX = velocityX;
+            ball.velocityY = velocityY;
+            ball.setCollisionFilter(category, mask, group);
+        }
+
+        int squares = count(in, SQUARE_BYTES);
+        if (world != null) world.reserve(squares);
+        for (int i = 0; i < squares; i++) {
+            double centerX = in.getDouble();
+            double centerY = in.getDouble();
+            double height = in.getDouble();
+            double width = in.getDouble();
+            double velocityX = in.getDouble();
+            double velocityY = in.getDouble();
+            double mass = in.getDouble();
+            double floorX = in.getDouble();
+            double floorY = in.getDouble();
+            BodyType bodyType = bodyType(in.get());
+            int material = material(materials, in.get());
+            int argb = in.getInt();
+            int category = in.getInt();
+            int mask = in.getInt();
+            int group = in.getInt();
+            if (world == null) continue;
+            Square square = world.spawnSquare(centerX, centerY, height, width, color(argb), floorX, floorY, mass, bodyType, material);
+            square.velocityX = velocityX;
+            square.velocityY = velocityY;
+            square.setCollisionFilter(category, mask, group);
+        }
+
+        int terrains = count(in, TERRAIN_BYTES);
+        for (int i = 0; i < terrains; i++) {
+            int material = material(materials, in.get());
+            int argb = in.getInt();
+            int category = in.getInt();
+            int mask = in.getInt();
+            int group = in.getInt();
+            int pointCount = count(in, 16);
+            if (pointCount < 2) throw new IOException("Terrain with " + pointCount + " points");
+            if (world == null) {
+                in.position(in.position() + 16 * pointCount);
+                continue;
+            }
+            double[] points = new double[2 * pointCount];
+            for (int p = 0; p < points.length; p++) points[p] = in.getDouble();
+            world.spawnTerrain(points, color(argb), material).setCollisionFilter(category, mask, group);
+        }
+
+        int sensors = version >= 2 ? count(in, SENSOR_BYTES) : 0;
+        for (int i = 0; i < sensors; i++) {
+            boolean circle = in.get() != 0;
+            double centerX = in.getDouble();
+            double centerY = in.getDouble();
+            double size = in.getDouble();
+            double height = in.getDouble();
+            int argb = in.getInt();
+            int category = in.getInt();
+            int mask = in.getInt();
+            int group = in.getInt();
+            if (world == null) continue;
+            Sensor sensor = circle
+                    ? world.spawnCircleSensor(centerX, centerY, size, color(argb))
+                    : world.spawnBoxSensor(centerX, centerY, size, height, color(argb));
+            sensor.setCollisionFilter(category, mask, group);
+        }
+    }
+
+    private static void writeBody(DataOutputStream out, RigidBody body, Paint fill) throws IOException {
+        out.writeDouble(body.velocityX);
+        out.writeDouble(body.velocityY);
+        out.writeDouble(body.getMass());
+        out.writeDouble(body.getFloorX());
+        out.writeDouble(body.getFloorY());
+        out.writeByte(body.getBodyType().ordinal());
+        out.writeByte(body.getMaterial());
+        out.writeInt(argb(fill));
+        writeFilter(out, body);
+    }
+
+    private static void writeFilter(DataOutputStream out, PhysicsObject object) throws IOException {
+        out.writeInt(object.getCollisionCategory());
+        out.writeInt(object.getCollisionMask());
+        out.writeInt(object.getCollisionGroup());
+    }
+
+    // Reads an element count and checks that the file can hold that many elements of the given size
+    private static int count(MappedByteBuffer in, int elementBytes) throws IOException {
+        int count = in.getInt();
+        if (count < 0 || (long) count * elementBytes > in.remaining()) throw new IOException("Corrupt element count " + count);
+        return count;
+    }
+
+    private static int findOrRegister(double restitution, double staticFriction, double dynamicFriction, double density) {
+        int existing = find(restitution, staticFriction, dynamicFriction, density);
+        return existing >= 0 ? existing : Materials.register(restitution, staticFriction, dynamicFriction, density);
+    }
+
+    private static int find(double restitution, double staticFriction, double dynamicFriction, double density) {
+        for (int m = 0; m < Materials.count(); m++) {
+            if (Materials.restitution(m) == restitution && Materials.staticFriction(m) == staticFriction
+                    && Materials.dynamicFriction(m) == dynamicFriction && Materials.density(m) == density) {
+                return m;
+            }
+        }
+        return -1;
+    }
+
+    // Checks that every material missing from the registry could be registered, before any of them is
+    private static void checkMaterials(double[] coefficients) throws IOException {
+        int missing = 0;
+        for (int m = 0; 4 * m < coefficients.length; m++) {
+            double restitution = coefficients[4 * m];
+            double staticFriction = coefficients[4 * m + 1];
+            double dynamicFriction = coefficients[4 * m + 2];
+            double density = coefficients[4 * m + 3];
+            if (find(restitution, staticFriction, dynamicFriction, density) >= 0) continue;
+            if (dynamicFriction > staticFriction) throw new IOException("Material " + m + " has more dynamic than static friction");
+
+            // Identical entries earlier in the file are only registered once
+            boolean repeated = false;
+            for (int k = 0; k < m && !repeated; k++) {
+                repeated = coefficients[4 * k] == restitution && coefficients[4 * k + 1] == staticFriction
+                        && coefficients[4 * k + 2] == dynamicFriction && coefficients[4 * k + 3] == density;
+            }
+            if (!repeated) missing++;
+        }
+        if (Materials.count() + missing > Materials.MAX_MATERIALS) {
+            throw new IOException("Scene needs " + missing + " new materials, more than the registry has room for");
+        }
+    }
+
+    private static int material(int[] materials, byte stored) throws IOException {
+        int index = stored & 0xFF;
+        if (index >= materials.length) throw new IOException("Unknown material " + index);
+        return materials[index];
+    }
+
+    private static BodyType bodyType(byte stored) throws IOException {
+        BodyType[] types = BodyType.values();
+        if (stored < 0 || stored >= types.length) throw new IOException("Unknown body type " + stored);
+        return types[stored];
+    }
+
+    private static byte integratorTag(Integrator integrator) {
+        if (integrator instanceof PositionVerlet) return POSITION_VERLET;
+        if (integrator instanceof RungeKutta4) return RUNGE_KUTTA_4;
+        return SYMPLECTIC_EULER;
+    }
+
+    private static Integrator integratorFor(byte tag) throws IOException {
+        return switch (tag) {
+            case SYMPLECTIC_EULER -> new SymplecticEuler();
+            case POSITION_VERLET -> new PositionVerlet();
+            case RUNGE_KUTTA_4 -> new RungeKutta4();
+            default -> throw new IOException("Unknown integrator " + tag);
+        };
+    }
+
+    private static int argb(Paint paint) {
+        if (!(paint instanceof Color color)) return 0xFF808080;
+        return (int) Math.round(color.getOpacity() * 255) << 24
+                | (int) Math.round(color.getRed() * 255) << 16
+                | (int) Math.round(color.getGreen() * 255) << 8
+                | (int) Math.round(color.getBlue() * 255);
+    }
+
+    private static Color color(int argb) {
+        return Color.rgb((argb >>> 16) & 0xFF, (argb >>> 8) & 0xFF, argb & 0xFF, ((argb >>> 24) & 0xFF) / 255.0);
+    }
+}
@@ -0,0 +1,51 @@
+package scheduler;
+
+import enums.Resource;
+import interfaces.Updatable;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * One step of the frame pipeline, e.g. integration or the render sync.
+ * A stage declares the resources it reads and writes. The scheduler runs stages that don't conflict at the same time
+ * and keeps the declared order between the ones that do.
+ */
+public class Stage {
+    private final String name;
+    private final Set<Resource> reads;
+    private final Set<Resource> writes;
+    private final boolean fxThread;     // Must run on the FX thread, e.g. because it touches nodes or calls listeners
+    private final Updatable task;
+
+    public Stage(String name, Set<Resource> reads, Set<Resource> writes, boolean fxThread, Updatable task) {
+        this.name = name;
+        this.reads = reads.isEmpty() ? EnumSet.noneOf(Resource.class) : EnumSet.copyOf(reads);
+        this.writes = writes.isEmpty() ? EnumSet.noneOf(Resource.class) : EnumSet.copyOf(writes);
+        this.fxThread = fxThread;
+        this.task = task;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isFxThread() {
+        return fxThread;
+    }
+
+    void run(double dt) {
+        task.update(dt);
+    }
+
+    // True if the two stages can't run at the same time: one writes something the other reads or writes
+    boolean conflictsWith(Stage other) {
+        for (Resource resource : writes) {
+            if (other.reads.contains(resource) || other.writes.contains(resource)) return true;
+        }
+        for (Resource resource : other.writes) {
+            if (reads.contains(resource)) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,161 @@
+package scheduler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Runs the simulation as a pipeline of stages instead of a flat list of updatables.
+ * Stages are grouped into waves: a stage goes into the first wave after every earlier stage it conflicts with,
+ * so the order in which stages were added is kept wherever it matters. Within a wave, stages that may leave the
+ * FX thread are forked onto the common fork-join pool while the FX-thread ones run inline, then the wave is joined.
+ * Step stages run once per simulation step, frame stages once per pulse after the steps.
+ * The time spent in every stage is summed over each frame.
+ */
+public class StageScheduler {
+    private final Pipeline steps = new Pipeline();
+    private final Pipeline frames = new Pipeline();
+
+    public void addStage(Stage stage) {
+        steps.add(stage);
+    }
+
+    public void addFrameStage(Stage stage) {
+        frames.add(stage);
+    }
+
+    // Must be called on the FX thread
+    public void step(double dt) {
+        steps.run(dt);
+    }
+
+    // Runs the frame stages and closes the frame's timings. Must be called on the FX thread once per pulse
+    public void frame() {
+        frames.run(0);
+        steps.closeFrame();
+        frames.closeFrame();
+    }
+
+    public List<Stage> getStages() {
+        return steps.view;
+    }
+
+    public List<Stage> getFrameStages() {
+        return frames.view;
+    }
+
+    // Nanoseconds the stage took over the last completed frame, summed over all of that frame's steps
+    public long getStageNanos(int stage) {
+        return steps.lastFrameNanos[stage];
+    }
+
+    public long getFrameStageNanos(int stage) {
+        return frames.lastFrameNanos[stage];
+    }
+
+    private static final class Pipeline {
+        private final List<Stage> stages = new ArrayList<>();
+        private final List<Stage> view = Collections.unmodifiableList(stages);
+        private StageTask[] tasks = new StageTask[0];
+        private int[] waveStart = new int[1];   // Tasks of wave w are tasks[waveStart[w], waveStart[w + 1]), in wave order
+        private int waveCount = 0;
+        private long[] frameNanos = new long[0];
+        private long[] lastFrameNanos = new long[0];
+
+        void add(Stage stage) {
+            stages.add(stage);
+            frameNanos = Arrays.copyOf(frameNanos, stages.size());
+            lastFrameNanos = Arrays.copyOf(lastFrameNanos, stages.size());
+            plan();
+        }
+
+        // Assigns every stage to the first wave after all earlier stages it conflicts with
+        private void plan() {
+            int n = stages.size();
+            int[] wave = new int[n];
+            waveCount = 0;
+            for (int j = 0; j < n; j++) {
+                for (int i = 0; i < j; i++) {
+                    if (stages.get(i).conflictsWith(stages.get(j))) wave[j] = Math.max(wave[j], wave[i] + 1);
+                }
+                waveCount = Math.max(waveCount, wave[j] + 1);
+            }
+
+            tasks = new StageTask[n];
+            waveStart = new int[waveCount + 1];
+            int next = 0;
+            for (int w = 0; w < waveCount; w++) {
+                waveStart[w] = next;
+                for (int j = 0; j < n; j++) {
+                    if (wave[j] == w) tasks[next++] = new StageTask(stages.get(j), j);
+                }
+            }
+            waveStart[waveCount] = next;
+        }
+
+        void run(double dt) {
+            for (int w = 0; w < waveCount; w++) {
+                int start = waveStart[w];
+                int end = waveStart[w + 1];
+                if (end - start == 1) {
+                    // Nothing to overlap with, handing it to another thread would only add latency
+                    tasks[start].runTimed(dt);
+                    continue;
+                }
+
+                for (int t = start; t < end; t++) {
+                    if (!tasks[t].stage.isFxThread()) {
+                        tasks[t].reinitialize();
+                        tasks[t].dt = dt;
+                        tasks[t].fork();
+                    }
+                }
+                for (int t = start; t < end; t++) {
+                    if (tasks[t].stage.isFxThread()) tasks[t].runTimed(dt);
+                }
+                // Blocking in join would allocate a wait node on this thread, so tasks no worker has taken yet are
+                // run here and the rest are waited for by yielding, which also leaves a single core to the workers
+                for (int t = end - 1; t >= start; t--) {
+                    StageTask task = tasks[t];
+                    if (task.stage.isFxThread()) continue;
+                    if (task.tryUnfork()) {
+                        task.runTimed(dt);
+                    } else {
+                        while (!task.isDone()) Thread.yield();
+                        task.join(); // Rethrows a stage's exception
+                    }
+                }
+            }
+        }
+
+        void closeFrame() {
+            System.arraycopy(frameNanos, 0, lastFrameNanos, 0, frameNanos.length);
+            Arrays.fill(frameNanos, 0);
+        }
+
+        private final class StageTask extends RecursiveAction {
+            private static final long serialVersionUID = 1L;
+            private final transient Stage stage;
+            private final int index;
+            private double dt;
+
+            StageTask(Stage stage, int index) {
+                this.stage = stage;
+                this.index = index;
+            }
+
+            void runTimed(double dt) {
+                long start = System.nanoTime();
+                stage.run(dt);
+                frameNanos[index] += System.nanoTime() - start;
+            }
+
+            @Override
+            protected void compute() {
+                runTimed(dt);
+            }
+        }
+    }
+}
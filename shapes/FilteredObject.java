@@ -0,0 +1,31 @@
+package shapes;
+
+import collision.CollisionFilter;
+import interfaces.PhysicsObject;
+
+/**
+ * Holds the collision filter bits shared by rigid bodies, terrains and sensors, see CollisionFilter.
+ */
+public abstract class FilteredObject implements PhysicsObject {
+    private int collisionCategory = CollisionFilter.DEFAULT_CATEGORY;
+    private int collisionMask = CollisionFilter.ALL;
+    private int collisionGroup = CollisionFilter.NO_GROUP;
+
+    public int getCollisionCategory() {
+        return collisionCategory;
+    }
+
+    public int getCollisionMask() {
+        return collisionMask;
+    }
+
+    public int getCollisionGroup() {
+        return collisionGroup;
+    }
+
+    public void setCollisionFilter(int category, int mask, int group) {
+        this.collisionCategory = category;
+        this.collisionMask = mask;
+        this.collisionGroup = group;
+    }
+}
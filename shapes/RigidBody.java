@@ -0,0 +1,168 @@
+package shapes;
+
+import enums.BodyType;
+import enums.Constants;
+import forces.UniformField;
+import integrators.SymplecticEuler;
+import interfaces.AccelerationField;
+import interfaces.Integrator;
+import interfaces.Updatable;
+import materials.Materials;
+import render.RenderSync;
+
+/**
+ * State shared by every simulated body: identity, mass, material, position, velocity and the
+ * integrator the owning world selected for it.
+ * The position lives here rather than in the JavaFX node. The node is only written by syncShape, once the body
+ * has drifted more than Constants.RENDER_SYNC_THRESHOLD from where it was last drawn.
+ */
+public abstract class RigidBody extends FilteredObject implements Updatable, AccelerationField {
+    public double velocityY = 0;
+    public double velocityX = 0;
+    protected double centerX;
+    protected double centerY;
+
+    protected final int id;
+    protected final double floorY;              // Y position of the floor
+    protected final double floorX;              // X boundary (right wall)
+    protected final double mass;
+    protected final BodyType bodyType;
+    private final byte material;                // Index into Materials
+    public final boolean isStatic;
+
+    private Integrator integrator = new SymplecticEuler();
+    private AccelerationField field = UniformField.GRAVITY;
+    private boolean supported = false;          // Resting on the floor, which cancels downward acceleration
+    private final double[] state = new double[4];
+    private final double[] acceleration = new double[2];  // Integrator scratch
+
+    // =================== RENDER SYNC ===================
+
+    private RenderSync renderSync;              // Set by the owning world, null while detached
+    private double renderedX, renderedY;        // Center as of the last syncShape
+    private boolean dirty = false;              // Already queued in renderSync
+
+    protected RigidBody(int id, double centerX, double centerY, double floorX, double floorY, double mass, BodyType bodyType, int material) {
+        this.id = id;
+        this.centerX = this.renderedX = centerX;
+        this.centerY = this.renderedY = centerY;
+        this.floorX = floorX;
+        this.floorY = floorY;
+        this.mass = mass;
+        this.bodyType = bodyType;
+        this.material = (byte) material;
+        this.isStatic = (bodyType == BodyType.Static);
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public int getMaterial() {
+        return material & 0xFF;
+    }
+
+    public double getMass() {
+        return mass;
+    }
+
+    public BodyType getBodyType() {
+        return bodyType;
+    }
+
+    public double getFloorX() {
+        return floorX;
+    }
+
+    public double getFloorY() {
+        return floorY;
+    }
+
+    public void applyImpulse(double impulseX, double impulseY) {
+        if (isStatic) return;
+        velocityX += impulseX / mass;
+        velocityY += impulseY / mass;
+    }
+
+    public void setIntegrator(Integrator integrator, AccelerationField field) {
+        this.integrator = integrator;
+        this.field = field;
+    }
+
+    public double getCenterX() {
+        return centerX;
+    }
+
+    public double getCenterY() {
+        return centerY;
+    }
+
+    public void setCenterX(double x) {
+        centerX = x;
+        if (!dirty && Math.abs(x - renderedX) > Constants.RENDER_SYNC_THRESHOLD) markDirty();
+    }
+
+    public void setCenterY(double y) {
+        centerY = y;
+        if (!dirty && Math.abs(y - renderedY) > Constants.RENDER_SYNC_THRESHOLD) markDirty();
+    }
+
+    public void setRenderSync(RenderSync renderSync) {
+        this.renderSync = renderSync;
+        if (dirty && renderSync != null) renderSync.add(this);
+    }
+
+    // Moves the node to the current position. Called by RenderSync on the FX thread
+    public void syncShape() {
+        renderedX = centerX;
+        renderedY = centerY;
+        dirty = false;
+        writeShapePosition(centerX, centerY);
+    }
+
+    // Places the node so its center is at (x, y)
+    protected abstract void writeShapePosition(double x, double y);
+
+    private void markDirty() {
+        dirty = true;
+        if (renderSync != null) renderSync.add(this);
+    }
+
+    protected double wallRestitution() {
+        return Materials.restitution(getMaterial(), Materials.WALL);
+    }
+
+    // Advances position and velocity by dt with the world's integrator. A supported body gets no downward acceleration
+    protected void integrate(double dt, boolean supported) {
+        loadState();
+        integrateState(dt, supported);
+        storeState();
+    }
+
+    // Copies position and velocity into the {x, y, velocityX, velocityY} state that integrateState works on
+    protected double[] loadState() {
+        state[0] = getCenterX();
+        state[1] = getCenterY();
+        state[2] = velocityX;
+        state[3] = velocityY;
+        return state;
+    }
+
+    protected void integrateState(double dt, boolean supported) {
+        this.supported = supported;
+        integrator.step(state, acceleration, dt, this);
+    }
+
+    protected void storeState() {
+        setCenterX(state[0]);
+        setCenterY(state[1]);
+        velocityX = state[2];
+        velocityY = state[3];
+    }
+
+    @Override
+    public void acceleration(double x, double y, double velocityX, double velocityY, double[] out) {
+        field.acceleration(x, y, velocityX, velocityY, out);
+        if (supported && out[1] > 0) out[1] = 0;
+    }
+}
@@ -0,0 +1,98 @@
+package shapes;
+
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Circle;
+import javafx.scene.shape.Rectangle;
+import javafx.scene.shape.Shape;
+
+/**
+ * Static trigger zone, either a circle or an axis-aligned box.
+ * A sensor only reports which bodies overlap it. It is kept out of the world's object list,
+ * so it never enters the pairwise collision loop and never pushes or slows anything.
+ */
+public class Sensor extends FilteredObject {
+    private final int id;
+    private final Shape shape;
+    private final double centerX;
+    private final double centerY;
+    private final double radius;       // 0 for a box
+    private final double halfWidth;
+    private final double halfHeight;
+
+    private Sensor(int id, double centerX, double centerY, double radius, double halfWidth, double halfHeight, Shape shape, Color color) {
+        this.id = id;
+        this.centerX = centerX;
+        this.centerY = centerY;
+        this.radius = radius;
+        this.halfWidth = halfWidth;
+        this.halfHeight = halfHeight;
+        this.shape = shape;
+        shape.setFill(color.deriveColor(0, 1, 1, 0.2));
+        shape.setStroke(color);
+        shape.getStrokeDashArray().setAll(4.0, 4.0);
+        shape.setMouseTransparent(true);
+    }
+
+    public static Sensor circle(int id, double centerX, double centerY, double radius, Color color) {
+        return new Sensor(id, centerX, centerY, radius, radius, radius, new Circle(centerX, centerY, radius), color);
+    }
+
+    public static Sensor box(int id, double centerX, double centerY, double width, double height, Color color) {
+        return new Sensor(id, centerX, centerY, 0, width / 2, height / 2,
+                new Rectangle(centerX - width / 2, centerY - height / 2, width, height), color);
+    }
+
+    public Shape getShape() {
+        return shape;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public boolean isCircle() {
+        return radius > 0;
+    }
+
+    public double getCenterX() {
+        return centerX;
+    }
+
+    public double getCenterY() {
+        return centerY;
+    }
+
+    public double getRadius() {
+        return radius;
+    }
+
+    public double getHalfWidth() {
+        return halfWidth;
+    }
+
+    public double getHalfHeight() {
+        return halfHeight;
+    }
+
+    // Exact overlap with a circle, the bounds were already checked by the broadphase
+    public boolean overlapsCircle(double x, double y, double r) {
+        if (isCircle()) {
+            double dx = x - centerX;
+            double dy = y - centerY;
+            return dx * dx + dy * dy < (radius + r) * (radius + r);
+        }
+        double dx = x - Math.max(centerX - halfWidth, Math.min(x, centerX + halfWidth));
+        double dy = y - Math.max(centerY - halfHeight, Math.min(y, centerY + halfHeight));
+        return dx * dx + dy * dy < r * r;
+    }
+
+    // Exact overlap with an axis-aligned box
+    public boolean overlapsBox(double minX, double minY, double maxX, double maxY) {
+        if (!isCircle()) {
+            return minX < centerX + halfWidth && maxX > centerX - halfWidth && minY < centerY + halfHeight && maxY > centerY - halfHeight;
+        }
+        double dx = centerX - Math.max(minX, Math.min(centerX, maxX));
+        double dy = centerY - Math.max(minY, Math.min(centerY, maxY));
+        return dx * dx + dy * dy < radius * radius;
+    }
+}
@@ -2,31 +2,20 @@ package shapes;
 
 import enums.BodyType;
 import enums.Constants;
-import interfaces.PhysicsObject;
-import interfaces.Updatable;
 import javafx.scene.paint.Color;
 import javafx.scene.shape.Rectangle;
+import materials.Materials;
 
 
-public class Square implements Updatable, PhysicsObject {
+public class Square extends RigidBody {
     private final Rectangle shape;
-    private double velocityY = 0;
-    private double velocityX = 0;
-    private final double gravity = 500;
-    private final double damping = 0.7;
-    private final double floorY;
-    private final double floorX;
-    private final double mass;
-    private final BodyType bodyType;
-    private final double GRAVITY = Constants.GRAVITY;       // Acceleration due to gravity (px/s^2)
-    private final double RESTITUTION = 0.1;   // Coefficient of restitution (0 = no bounce, 1 = perfect bounce)
-
-
-    public Square(double centerX, double centerY, double height, double width, Color color, double floorX, double floorY, double mass, BodyType bodyType) {
-        this.floorY = floorY;
-        this.floorX = floorX;
-        this.mass = mass;
-        this.bodyType = bodyType;
+    private final double width;
+    private final double height;
+
+    public Square(int id, double centerX, double centerY, double height, double width, Color color, double floorX, double floorY, double mass, BodyType bodyType, int material) {
+        super(id, centerX, centerY, floorX, floorY, mass, bodyType, material);
+        this.width = width;
+        this.height = height;
         shape = new Rectangle(width, height);
         shape.setFill(color);
         shape.setX(centerX - width / 2);
@@ -39,38 +28,34 @@ public class Square implements Updatable, PhysicsObject {
     }
 
     public double getWidth() {
-        return shape.getWidth();
+        return width;
     }
 
     public double getHeight() {
-        return shape.getHeight();
+        return height;
     }
 
+    // Left edge
     public double getX() {
-        return shape.getX();
+        return centerX - width / 2;
     }
 
+    // Top edge
     public double getY() {
-        return shape.getY();
-    }
-
-    public double getCenterX() {
-        return shape.getX() + shape.getWidth() / 2;
+        return centerY - height / 2;
     }
 
-    public double getCenterY() {
-        return shape.getY() + shape.getHeight() / 2;
+    @Override
+    protected void writeShapePosition(double x, double y) {
+        shape.setX(x - width / 2);
+        shape.setY(y - height / 2);
     }
 
     public void update(double dt) {
         if (bodyType == BodyType.Static) return;
 
-        // Apply gravity
-        velocityY += GRAVITY * dt;
-
-        // Integrate position
-        shape.setY(shape.getY() + velocityY * dt);
-        shape.setX(shape.getX() + velocityX * dt);
+        // Apply gravity and integrate position
+        integrate(dt, false);
 
         // Handle floor and wall collisions
         bounceY();
@@ -78,7 +63,7 @@ public class Square implements Updatable, PhysicsObject {
 
         // Apply friction if on floor
         if (onFloor()) {
-            double frictionAccel = Constants.FRICTION * GRAVITY;
+            double frictionAccel = Materials.dynamicFriction(getMaterial(), Materials.WALL) * Constants.GRAVITY;
 
             if (velocityX > 0) {
                 velocityX = Math.max(0, velocityX - frictionAccel * dt);
@@ -99,27 +84,27 @@ public class Square implements Updatable, PhysicsObject {
     }
 
     private void bounceY() {
-        if (shape.getY() + shape.getHeight() >= floorY) {
-            shape.setY(floorY - shape.getHeight());
+        if (getY() + height >= floorY) {
+            setCenterY(floorY - height / 2);
 
             double relativeVelocity = velocityY;
-            double impulse = -(1 + RESTITUTION) * relativeVelocity / (1 / mass + 0);
+            double impulse = -(1 + wallRestitution()) * relativeVelocity / (1 / mass + 0);
             velocityY += impulse / mass;
         }
     }
 
     private void bounceX() {
-        if (shape.getX() < 0) {
-            shape.setX(0);
-            velocityX = -velocityX * RESTITUTION;
+        if (getX() < 0) {
+            setCenterX(width / 2);
+            velocityX = -velocityX * wallRestitution();
         }
-        if (shape.getX() + shape.getWidth() > floorX) {
-            shape.setX(floorX - shape.getWidth());
-            velocityX = -velocityX * RESTITUTION;
+        if (getX() + width > floorX) {
+            setCenterX(floorX - width / 2);
+            velocityX = -velocityX * wallRestitution();
         }
     }
 
     private boolean onFloor() {
-        return shape.getY() + shape.getHeight() >= floorY - 0.5;
+        return getY() + height >= floorY - 0.5;
     }
 }
\ No newline at end of file
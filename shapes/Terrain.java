@@ -0,0 +1,94 @@
+package shapes;
+
+import collision.AabbTree;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Polyline;
+
+/**
+ * Static polyline collider made of straight segments.
+ * The segments are indexed by an AabbTree built once in the constructor, so a body only
+ * has to be tested against the few segments near it instead of the whole polyline.
+ */
+public class Terrain extends FilteredObject {
+    private final int id;
+    private final byte material; // Index into Materials
+    private final Polyline shape;
+
+    // Segment i goes from (x1[i], y1[i]) to (x2[i], y2[i])
+    private final double[] x1;
+    private final double[] y1;
+    private final double[] x2;
+    private final double[] y2;
+    private final AabbTree tree;
+
+    // Points are given as x0, y0, x1, y1, ... and joined in order
+    public Terrain(int id, double[] points, Color color, int material) {
+        if (points.length < 4 || points.length % 2 != 0) {
+            throw new IllegalArgumentException("Terrain needs at least two points given as x, y pairs");
+        }
+        this.id = id;
+        this.material = (byte) material;
+
+        int segments = points.length / 2 - 1;
+        x1 = new double[segments];
+        y1 = new double[segments];
+        x2 = new double[segments];
+        y2 = new double[segments];
+        double[] minX = new double[segments];
+        double[] minY = new double[segments];
+        double[] maxX = new double[segments];
+        double[] maxY = new double[segments];
+        for (int i = 0; i < segments; i++) {
+            x1[i] = points[2 * i];
+            y1[i] = points[2 * i + 1];
+            x2[i] = points[2 * i + 2];
+            y2[i] = points[2 * i + 3];
+            minX[i] = Math.min(x1[i], x2[i]);
+            minY[i] = Math.min(y1[i], y2[i]);
+            maxX[i] = Math.max(x1[i], x2[i]);
+            maxY[i] = Math.max(y1[i], y2[i]);
+        }
+        tree = new AabbTree(minX, minY, maxX, maxY);
+
+        shape = new Polyline(points);
+        shape.setStroke(color);
+        shape.setStrokeWidth(2);
+    }
+
+    public Polyline getShape() {
+        return shape;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public int getMaterial() {
+        return material & 0xFF;
+    }
+
+    public int getSegmentCount() {
+        return x1.length;
+    }
+
+    // Writes the indices of segments whose bounds overlap the box into out, see AabbTree.query
+    public int querySegments(double minX, double minY, double maxX, double maxY, int[] out) {
+        return tree.query(minX, minY, maxX, maxY, out);
+    }
+
+    public double getX1(int segment) {
+        return x1[segment];
+    }
+
+    public double getY1(int segment) {
+        return y1[segment];
+    }
+
+    public double getX2(int segment) {
+        return x2[segment];
+    }
+
+    public double getY2(int segment) {
+        return y2[segment];
+    }
+}
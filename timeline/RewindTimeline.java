@@ -0,0 +1,398 @@
+package timeline;
+
+import PhysicsWorld.PhysicsWorld;
+import interfaces.PhysicsObject;
+import shapes.RigidBody;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Bounded in-memory history of the world for rewinding.
+ * Every step records a frame: a keyframe holds the state of every body, a delta frame only the bodies
+ * that changed since the previous frame. Records live in preallocated primitive ring buffers sized from
+ * a memory cap, and the oldest frames are dropped once it is reached.
+ * A frame is the state at the start of a step, so after seeking the world continues from exactly that point.
+ * The timeline holds on to every body that still has a record in the kept frames, so seeking can take bodies
+ * out of the world and put them back. Those bodies count against the cap, and are let go once their frames are dropped.
+ */
+public class RewindTimeline {
+    private static final int RECORD_BYTES = Integer.BYTES + 4 * Double.BYTES; // id, x, y, velocityX, velocityY
+    private static final int FRAME_BYTES = Long.BYTES + Integer.BYTES + 1;      // start, count, keyframe flag
+    // Bookkeeping per held body: reference, id, last state, stamp, newest frame and two id table slots
+    private static final int HELD_BYTES = 8 + Integer.BYTES + 4 * Double.BYTES + Integer.BYTES + Long.BYTES + 2 * 2 * Integer.BYTES;
+    private static final int DETACHED_BODY_BYTES = 2048; // Rough size of a despawned body and its node, kept alive only by the timeline
+    private static final int EMPTY = -1;
+
+    private final PhysicsWorld world;
+    private final int keyframeInterval;
+
+    // Record ring, positions are absolute and wrap modulo recordCapacity
+    private final int recordCapacity;
+    private final int[] recordId;
+    private final double[] recordState;
+    private long recordEnd = 0;
+
+    // Frame ring, frame numbers are absolute and wrap modulo frameCapacity
+    private final int frameCapacity;
+    private final long[] frameStart;
+    private final int[] frameCount;
+    private final boolean[] frameKey;
+    private long oldestFrame = 0;
+    private long frameEnd = 0;          // One past the newest frame
+
+    // Bodies with a record in the kept frames, in dense arrays. Live bodies always have one, since a keyframe follows every spawn
+    private final long heldBudget;
+    private RigidBody[] held = new RigidBody[64];
+    private int[] heldId = new int[64];
+    private double[] last = new double[4 * 64];  // State as of the newest record
+    private int[] heldStamp = new int[64];       // Seek stamp, marks the bodies present in the keyframe being restored
+    private long[] heldFrame = new long[64];     // Newest frame with a record of the body
+    private int heldCount = 0;
+    private int detachedCount = 0;               // Held bodies that are not in the world, as of the last release
+    private int stamp = 0;
+
+    // Open-addressing table from body id to its index in the held arrays
+    private int[] tableKeys = new int[128];
+    private int[] tableValues = new int[128];
+    private int tableMask = 127;
+
+    private int framesSinceKeyframe = 0;
+    private long structureVersion = -1;
+    private long seekedFrame = -1;       // Set while the world sits on a rewound frame
+
+    public RewindTimeline(PhysicsWorld world, long memoryCapBytes, int keyframeInterval) {
+        if (keyframeInterval < 1) throw new IllegalArgumentException("keyframeInterval must be at least 1");
+        this.world = world;
+        this.keyframeInterval = keyframeInterval;
+
+        // A tenth of the budget goes to the frame index, a tenth to the held bodies, the rest to body records
+        frameCapacity = (int) Math.max(2, Math.min(Integer.MAX_VALUE, memoryCapBytes / 10 / FRAME_BYTES));
+        heldBudget = memoryCapBytes / 10;
+        recordCapacity = (int) Math.max(1, Math.min(Integer.MAX_VALUE / 4, (memoryCapBytes - (long) frameCapacity * FRAME_BYTES - heldBudget) / RECORD_BYTES));
+        frameStart = new long[frameCapacity];
+        frameCount = new int[frameCapacity];
+        frameKey = new boolean[frameCapacity];
+        recordId = new int[recordCapacity];
+        recordState = new double[4 * recordCapacity];
+        Arrays.fill(tableKeys, EMPTY);
+    }
+
+    public long getOldestFrame() {
+        return oldestFrame;
+    }
+
+    // Newest recorded frame, or oldestFrame - 1 if nothing is recorded
+    public long getNewestFrame() {
+        return frameEnd - 1;
+    }
+
+    public boolean isEmpty() {
+        return frameEnd == oldestFrame;
+    }
+
+    // Number of bodies the timeline currently keeps, in or out of the world
+    public int getHeldCount() {
+        return heldCount;
+    }
+
+    public void clear() {
+        Arrays.fill(held, 0, heldCount, null);
+        heldCount = 0;
+        detachedCount = 0;
+        Arrays.fill(tableKeys, EMPTY);
+        oldestFrame = frameEnd;
+        seekedFrame = -1;
+        structureVersion = -1;
+        framesSinceKeyframe = 0;
+    }
+
+    /**
+     * Records the current world state as the next frame. Called by the world at the start of every step.
+     */
+    public void record() {
+        if (seekedFrame >= 0) {
+            // Resuming from a rewound frame: drop the old future and record this frame again
+            frameEnd = seekedFrame;
+            recordEnd = frameEnd > oldestFrame ? endOf(frameEnd - 1) : recordEnd;
+            seekedFrame = -1;
+            structureVersion = -1;
+            for (int i = 0; i < heldCount; i++) {
+                heldFrame[i] = Math.min(heldFrame[i], frameEnd - 1);
+            }
+        }
+        release();
+
+        List<PhysicsObject> objects = world.getObjects();
+        boolean key = framesSinceKeyframe + 1 >= keyframeInterval || world.getStructureVersion() != structureVersion || frameEnd == oldestFrame;
+        int count = key ? countBodies(objects) : countChanged(objects);
+        int unheld = countUnheld(objects);
+
+        makeRoom(count, unheld);
+        if (!key && frameEnd == oldestFrame) {
+            // The base keyframe was evicted to make room, so this frame has to be one
+            key = true;
+            count = countBodies(objects);
+        }
+        if (count > recordCapacity || heldBytes(unheld) > heldBudget) {
+            // A single keyframe doesn't fit in the budget, nothing useful can be kept
+            clear();
+            return;
+        }
+
+        int frameSlot = (int) (frameEnd % frameCapacity);
+        frameStart[frameSlot] = recordEnd;
+        frameCount[frameSlot] = count;
+        frameKey[frameSlot] = key;
+
+        for (int i = 0; i < objects.size(); i++) {
+            if (!(objects.get(i) instanceof RigidBody body)) continue;
+            int index = find(body.getId());
+            if (index < 0) {
+                writeRecord(body, hold(body));
+            } else if (key || changed(body, index)) {
+                writeRecord(body, index);
+            }
+        }
+
+        frameEnd++;
+        framesSinceKeyframe = key ? 0 : framesSinceKeyframe + 1;
+        structureVersion = world.getStructureVersion();
+    }
+
+    /**
+     * Records the current state and treats the world as sitting on that frame, so it can be scrubbed to
+     * while paused. The next step records the same state again in its place.
+     */
+    public void capture() {
+        record();
+        if (!isEmpty()) seekedFrame = frameEnd - 1;
+    }
+
+    /**
+     * Puts the world back into the state of the given frame. Bodies that didn't exist at that frame are despawned
+     * and bodies that did are respawned, so seeking back past a spawn and forward again restores it.
+     * Stepping afterwards discards the frames after it.
+     */
+    public void seek(long frame) {
+        if (frame < oldestFrame || frame >= frameEnd) {
+            throw new IllegalArgumentException("Frame " + frame + " is outside the timeline [" + oldestFrame + ", " + (frameEnd - 1) + "]");
+        }
+
+        long keyframe = frame;
+        while (!frameKey[(int) (keyframe % frameCapacity)]) keyframe--;
+
+        // Keyframe: every body present at that point. Spawns and despawns force a keyframe, so the same bodies
+        // exist up to the requested frame
+        stamp++;
+        int slot = (int) (keyframe % frameCapacity);
+        long start = frameStart[slot];
+        for (int r = 0; r < frameCount[slot]; r++) {
+            int index = find(recordId[(int) ((start + r) % recordCapacity)]);
+            heldStamp[index] = stamp;
+            if (world.getBody(heldId[index]) == null) world.respawn(held[index]);
+            applyRecord(start + r);
+        }
+
+        // Bodies that didn't exist at the keyframe, still held in case a later seek brings them back
+        List<PhysicsObject> objects = world.getObjects();
+        for (int i = objects.size() - 1; i >= 0; i--) {
+            if (!(objects.get(i) instanceof RigidBody body)) continue;
+            int index = find(body.getId());
+            if (index < 0 || heldStamp[index] != stamp) world.despawn(body.getId());
+        }
+
+        // Deltas up to the requested frame
+        for (long f = keyframe + 1; f <= frame; f++) {
+            int deltaSlot = (int) (f % frameCapacity);
+            long deltaStart = frameStart[deltaSlot];
+            for (int r = 0; r < frameCount[deltaSlot]; r++) {
+                applyRecord(deltaStart + r);
+            }
+        }
+
+        seekedFrame = frame;
+    }
+
+    // Frame the world currently sits on after a seek, or -1 if it is running live
+    public long getSeekedFrame() {
+        return seekedFrame;
+    }
+
+    private int countBodies(List<PhysicsObject> objects) {
+        int count = 0;
+        for (int i = 0; i < objects.size(); i++) {
+            if (objects.get(i) instanceof RigidBody) count++;
+        }
+        return count;
+    }
+
+    private int countChanged(List<PhysicsObject> objects) {
+        int count = 0;
+        for (int i = 0; i < objects.size(); i++) {
+            if (!(objects.get(i) instanceof RigidBody body)) continue;
+            int index = find(body.getId());
+            if (index < 0 || changed(body, index)) count++;
+        }
+        return count;
+    }
+
+    private int countUnheld(List<PhysicsObject> objects) {
+        int count = 0;
+        for (int i = 0; i < objects.size(); i++) {
+            if (objects.get(i) instanceof RigidBody body && find(body.getId()) < 0) count++;
+        }
+        return count;
+    }
+
+    private boolean changed(RigidBody body, int index) {
+        int base = index * 4;
+        return last[base] != body.getCenterX() || last[base + 1] != body.getCenterY()
+                || last[base + 2] != body.velocityX || last[base + 3] != body.velocityY;
+    }
+
+    // Memory the held bodies take once the given number of new ones is added
+    private long heldBytes(int unheld) {
+        return (long) (heldCount + unheld) * HELD_BYTES + (long) detachedCount * DETACHED_BODY_BYTES;
+    }
+
+    // Drops the oldest frames until count more records, unheld more bodies and one more frame fit, keeping a keyframe at the front
+    private void makeRoom(int count, int unheld) {
+        while (frameEnd > oldestFrame && (frameEnd - oldestFrame >= frameCapacity
+                || recordEnd + count - frameStart[(int) (oldestFrame % frameCapacity)] > recordCapacity
+                || heldBytes(unheld) > heldBudget)) {
+            oldestFrame++;
+            while (frameEnd > oldestFrame && !frameKey[(int) (oldestFrame % frameCapacity)]) oldestFrame++;
+            release();
+        }
+    }
+
+    // Lets go of the bodies whose records were all dropped, and recounts the ones outside the world
+    private void release() {
+        detachedCount = 0;
+        for (int i = heldCount - 1; i >= 0; i--) {
+            if (heldFrame[i] < oldestFrame) {
+                unhold(i);
+            } else if (world.getBody(heldId[i]) != held[i]) {
+                detachedCount++;
+            }
+        }
+    }
+
+    private void writeRecord(RigidBody body, int index) {
+        int slot = (int) (recordEnd % recordCapacity);
+        int base = index * 4;
+        recordId[slot] = body.getId();
+        heldFrame[index] = frameEnd;
+        recordState[4 * slot] = last[base] = body.getCenterX();
+        recordState[4 * slot + 1] = last[base + 1] = body.getCenterY();
+        recordState[4 * slot + 2] = last[base + 2] = body.velocityX;
+        recordState[4 * slot + 3] = last[base + 3] = body.velocityY;
+        recordEnd++;
+    }
+
+    private void applyRecord(long position) {
+        int slot = (int) (position % recordCapacity);
+        if (!(world.getBody(recordId[slot]) instanceof RigidBody body)) return;
+
+        body.setCenterX(recordState[4 * slot]);
+        body.setCenterY(recordState[4 * slot + 1]);
+        body.velocityX = recordState[4 * slot + 2];
+        body.velocityY = recordState[4 * slot + 3];
+    }
+
+    private long endOf(long frame) {
+        int slot = (int) (frame % frameCapacity);
+        return frameStart[slot] + frameCount[slot];
+    }
+
+    // =================== HELD BODIES ===================
+
+    // Index of the body in the held arrays, or -1 if it isn't held
+    private int find(int id) {
+        int slot = hash(id) & tableMask;
+        while (tableKeys[slot] != EMPTY) {
+            if (tableKeys[slot] == id) return tableValues[slot];
+            slot = (slot + 1) & tableMask;
+        }
+        return -1;
+    }
+
+    private int hold(RigidBody body) {
+        if (heldCount == held.length) {
+            int capacity = heldCount * 2;
+            held = Arrays.copyOf(held, capacity);
+            heldId = Arrays.copyOf(heldId, capacity);
+            last = Arrays.copyOf(last, 4 * capacity);
+            heldStamp = Arrays.copyOf(heldStamp, capacity);
+            heldFrame = Arrays.copyOf(heldFrame, capacity);
+        }
+        if ((heldCount + 1) * 4 > tableKeys.length * 3) growTable();
+
+        int index = heldCount++;
+        held[index] = body;
+        heldId[index] = body.getId();
+        heldStamp[index] = 0;
+        put(body.getId(), index);
+        return index;
+    }
+
+    // Removes the body at index, moving the last held body into its place
+    private void unhold(int index) {
+        remove(heldId[index]);
+        int lastIndex = --heldCount;
+        if (index != lastIndex) {
+            held[index] = held[lastIndex];
+            heldId[index] = heldId[lastIndex];
+            System.arraycopy(last, 4 * lastIndex, last, 4 * index, 4);
+            heldStamp[index] = heldStamp[lastIndex];
+            heldFrame[index] = heldFrame[lastIndex];
+            tableValues[slotOf(heldId[index])] = index;
+        }
+        held[lastIndex] = null;
+    }
+
+    private void put(int id, int index) {
+        int slot = hash(id) & tableMask;
+        while (tableKeys[slot] != EMPTY) slot = (slot + 1) & tableMask;
+        tableKeys[slot] = id;
+        tableValues[slot] = index;
+    }
+
+    private int slotOf(int id) {
+        int slot = hash(id) & tableMask;
+        while (tableKeys[slot] != id) slot = (slot + 1) & tableMask;
+        return slot;
+    }
+
+    // Backward-shift deletion, so lookups never need tombstones
+    private void remove(int id) {
+        int hole = slotOf(id);
+        int next = (hole + 1) & tableMask;
+        while (tableKeys[next] != EMPTY) {
+            int home = hash(tableKeys[next]) & tableMask;
+            // The entry may move into the hole if the hole lies on its probe path
+            if (((next - home) & tableMask) >= ((next - hole) & tableMask)) {
+                tableKeys[hole] = tableKeys[next];
+                tableValues[hole] = tableValues[next];
+                hole = next;
+            }
+            next = (next + 1) & tableMask;
+        }
+        tableKeys[hole] = EMPTY;
+    }
+
+    private void growTable() {
+        int capacity = tableKeys.length * 2;
+        tableKeys = new int[capacity];
+        tableValues = new int[capacity];
+        Arrays.fill(tableKeys, EMPTY);
+        tableMask = capacity - 1;
+        for (int i = 0; i < heldCount; i++) put(heldId[i], i);
+    }
+
+    private static int hash(int id) {
+        int h = id * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}